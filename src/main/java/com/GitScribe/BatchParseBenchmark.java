@@ -0,0 +1,107 @@
+package com.GitScribe;
+
+import com.GitScribe.Service.BlobIdResolver;
+import com.GitScribe.Service.FileHistory;
+import com.GitScribe.Service.FileHistoryWalker;
+import com.GitScribe.Service.GitHubService;
+import com.GitScribe.Service.JDTParser;
+import com.GitScribe.Service.RepositorySession;
+import com.GitScribe.Service.RepositorySessionRegistry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures how {@link JDTParser#parseBatch} scales with threads: parses all distinct
+ * versions of the given files with 1, 2, 4, ... up to maxThreads threads, starting from
+ * an empty parse cache each run, and reports throughput and speedup over one thread.
+ *
+ * Usage: BatchParseBenchmark &lt;repoDir&gt; &lt;maxThreads&gt; &lt;runs&gt; &lt;filePath&gt;...
+ */
+public class BatchParseBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: BatchParseBenchmark <repoDir> <maxThreads> <runs> <filePath>...");
+            return;
+        }
+        String repoDir = args[0];
+        int maxThreads = Integer.parseInt(args[1]);
+        int runs = Integer.parseInt(args[2]);
+        List<String> files = Arrays.asList(args).subList(3, args.length);
+
+        List<String> sources = new ArrayList<>();
+        List<ObjectId> sourceIds = new ArrayList<>();
+        RepositorySessionRegistry registry = new RepositorySessionRegistry();
+        try (RepositorySession session = registry.acquire(repoDir)) {
+            for (String file : files) {
+                loadVersions(session, file, sources, sourceIds);
+            }
+        } finally {
+            registry.shutdown();
+        }
+        long bytes = 0;
+        for (String source : sources) {
+            bytes += source.length();
+        }
+        System.out.println(sources.size() + " versions, " + bytes / 1024 + " KiB, "
+                + Runtime.getRuntime().availableProcessors() + " cores, backend " + JDTParser.getBackend().getName());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, maxThreads - 1));
+        try {
+            // warm-up
+            JDTParser.clearCache();
+            JDTParser.parseBatch(sources, sourceIds, executor, maxThreads);
+            long single = 0;
+            for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1) {
+                List<Long> times = new ArrayList<>();
+                for (int run = 0; run < runs; run++) {
+                    JDTParser.clearCache();
+                    long start = System.nanoTime();
+                    JDTParser.parseBatch(sources, sourceIds, executor, threads);
+                    times.add(System.nanoTime() - start);
+                }
+                long time = median(times);
+                if (threads == 1) {
+                    single = time;
+                }
+                System.out.printf("threads=%-3d %8.1f ms  %8.1f files/s  %6.2f MB/s  speedup=%.2fx  efficiency=%.0f%%%n",
+                        threads, time / 1e6, sources.size() / (time / 1e9), bytes / 1e6 / (time / 1e9),
+                        (double) single / time, 100.0 * single / time / threads);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Adds the distinct contents of filePath along its history, skipping oversized versions. */
+    private static void loadVersions(RepositorySession session, String filePath, List<String> sources,
+                                     List<ObjectId> sourceIds) throws Exception {
+        FileHistory history = new FileHistoryWalker(session.getRepository()).walk(filePath);
+        Set<ObjectId> distinct = new LinkedHashSet<>(
+                new BlobIdResolver(session.getRepository()).resolve(history.getCommits(), history.getPaths()));
+        distinct.remove(ObjectId.zeroId());
+        for (ObjectId blobId : distinct) {
+            ObjectLoader loader = session.getObjectReader().open(blobId, Constants.OBJ_BLOB);
+            if (loader.getSize() <= GitHubService.DEFAULT_MAX_PARSE_BYTES) {
+                sources.add(new String(loader.getBytes(), StandardCharsets.UTF_8));
+                sourceIds.add(blobId);
+            }
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -34,7 +34,7 @@ public class BatchRepositoryTester implements CommandLineRunner {
     public void run(String... args) throws Exception {
         for (String repoUrl : repositories) {
             System.out.println("Processing Repository: " + repoUrl);
-            File clonedRepo = cloneService.cloneRepository(repoUrl, null);
+            File clonedRepo = cloneService.getOrCloneRepository(repoUrl);
             String repoDirPath = clonedRepo.getAbsolutePath();
 
             List<String[]> csvData = new ArrayList<>();
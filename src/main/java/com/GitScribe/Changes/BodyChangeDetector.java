@@ -2,6 +2,9 @@ package com.GitScribe.Changes;
 
 
 
+import com.GitScribe.Service.MethodSnapshot;
+import com.GitScribe.Util.BodyEditStats;
+import com.GitScribe.Util.StringSimilarity;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,61 +20,25 @@ public class BodyChangeDetector {
         return "";
     }
 
+    /** Jaro–Winkler similarity, see {@link StringSimilarity#jaroWinkler(String, String)}. */
     public static double jaroWinklerDistance(String s1, String s2) {
-        if (s1.equals(s2)) return 1.0;
-        int s1Len = s1.length();
-        int s2Len = s2.length();
-        if (s1Len == 0 || s2Len == 0) return 0.0;
-        int matchDistance = Math.max(s1Len, s2Len) / 2 - 1;
-        boolean[] s1Matches = new boolean[s1Len];
-        boolean[] s2Matches = new boolean[s2Len];
-        int matches = 0;
-        for (int i = 0; i < s1Len; i++) {
-            int start = Math.max(0, i - matchDistance);
-            int end = Math.min(i + matchDistance + 1, s2Len);
-            for (int j = start; j < end; j++) {
-                if (s2Matches[j]) continue;
-                if (s1.charAt(i) != s2.charAt(j)) continue;
-                s1Matches[i] = true;
-                s2Matches[j] = true;
-                matches++;
-                break;
-            }
-        }
-        if (matches == 0) return 0.0;
-        double transpositions = 0;
-        int k = 0;
-        for (int i = 0; i < s1Len; i++) {
-            if (!s1Matches[i]) continue;
-            while (!s2Matches[k]) {
-                k++;
-            }
-            if (s1.charAt(i) != s2.charAt(k)) {
-                transpositions++;
-            }
-            k++;
-        }
-        transpositions /= 2.0;
-        double jaro = ((matches / (double) s1Len) +
-                         (matches / (double) s2Len) +
-                         ((matches - transpositions) / matches)) / 3.0;
-        int prefix = 0;
-        for (int i = 0; i < Math.min(4, Math.min(s1Len, s2Len)); i++) {
-            if (s1.charAt(i) == s2.charAt(i)) {
-                prefix++;
-            } else {
-                break;
-            }
-        }
-        return jaro + prefix * 0.1 * (1 - jaro);
+        return StringSimilarity.jaroWinkler(s1, s2);
+    }
+
+    /** Compares the body code of two versions of a method; null means the method is absent. */
+    public static List<String> detectBodyChange(MethodSnapshot oldMethod, MethodSnapshot newMethod) {
+        return detectBodyChange(oldMethod, newMethod, BodyTokenDiff.compare(oldMethod, newMethod));
     }
 
-    public static List<String> detectBodyChange(String oldBlock, String newBlock) {
+    /**
+     * Decides a body change from the token diff of the two bodies (null if there is
+     * none): any code token inserted, deleted or changed is a body change, whatever the
+     * size of the body. Comments and layout are not tokens, so they never are one; the
+     * similarity of the body text is not computed.
+     */
+    public static List<String> detectBodyChange(MethodSnapshot oldMethod, MethodSnapshot newMethod, BodyEditStats edits) {
         List<String> changes = new ArrayList<>();
-        String oldBody = extractBody(oldBlock);
-        String newBody = extractBody(newBlock);
-        double similarity = jaroWinklerDistance(oldBody, newBody);
-        if (similarity < 0.95) {
+        if (edits != null && edits.getTokensTouched() > 0) {
             changes.add("Body Change");
         }
         return changes;
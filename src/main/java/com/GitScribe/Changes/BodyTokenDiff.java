@@ -0,0 +1,172 @@
+package com.GitScribe.Changes;
+
+import com.GitScribe.Service.MethodSnapshot;
+import com.GitScribe.Util.BodyEditStats;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+
+import java.util.Arrays;
+
+/**
+ * Token-level diff of two method bodies: JGit's histogram diff over the code tokens
+ * JDT's scanner finds in each body, so that comments and layout never show up as edits.
+ * Linear in the number of tokens for typical edits, where a character-level
+ * Jaro–Winkler scans a window that grows with the body; {@link BodyChangeDetector}
+ * decides body changes from its statistics alone.
+ */
+public class BodyTokenDiff {
+
+    private static final DiffAlgorithm HISTOGRAM = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+
+    /** Edit statistics from oldMethod's body to newMethod's; null means the method is absent (an empty body). */
+    public static BodyEditStats compare(MethodSnapshot oldMethod, MethodSnapshot newMethod) {
+        return compare(oldMethod != null ? oldMethod.getBodyText() : "",
+                       newMethod != null ? newMethod.getBodyText() : "");
+    }
+
+    /**
+     * Edit statistics from oldBody to newBody. If either is empty the other is counted
+     * as inserted or deleted as a whole, without running the diff.
+     */
+    public static BodyEditStats compare(String oldBody, String newBody) {
+        Tokens a = Tokens.of(oldBody);
+        Tokens b = Tokens.of(newBody);
+        BodyEditStats stats = new BodyEditStats();
+        stats.setTokensBefore(a.size());
+        stats.setTokensAfter(b.size());
+        if (a.size() == 0 || b.size() == 0) {
+            stats.setEdits(a.size() + b.size() > 0 ? 1 : 0);
+            stats.setTokensDeleted(a.size());
+            stats.setTokensInserted(b.size());
+            stats.setLinesDeleted(a.countLines(0, a.size(), -1));
+            stats.setLinesInserted(b.countLines(0, b.size(), -1));
+            return stats;
+        }
+
+        EditList edits = HISTOGRAM.diff(Tokens.COMPARATOR, a, b);
+        stats.setEdits(edits.size());
+        // last line counted on each side; edits come in order, so a line shared by two
+        // edit regions is counted with the first
+        int lastLineA = -1;
+        int lastLineB = -1;
+        for (Edit edit : edits) {
+            int tokensA = edit.getLengthA();
+            int tokensB = edit.getLengthB();
+            int shared = Math.min(tokensA, tokensB);
+            stats.setTokensChanged(stats.getTokensChanged() + shared);
+            stats.setTokensDeleted(stats.getTokensDeleted() + tokensA - shared);
+            stats.setTokensInserted(stats.getTokensInserted() + tokensB - shared);
+
+            int linesA = a.countLines(edit.getBeginA(), edit.getEndA(), lastLineA);
+            int linesB = b.countLines(edit.getBeginB(), edit.getEndB(), lastLineB);
+            if (tokensA > 0) lastLineA = a.lines[edit.getEndA() - 1];
+            if (tokensB > 0) lastLineB = b.lines[edit.getEndB() - 1];
+            int sharedLines = Math.min(linesA, linesB);
+            stats.setLinesChanged(stats.getLinesChanged() + sharedLines);
+            stats.setLinesDeleted(stats.getLinesDeleted() + linesA - sharedLines);
+            stats.setLinesInserted(stats.getLinesInserted() + linesB - sharedLines);
+        }
+        return stats;
+    }
+
+    /** Code tokens of a body as ranges of its text, with a hash and a 0-based line each. */
+    private static final class Tokens extends Sequence {
+        static final SequenceComparator<Tokens> COMPARATOR = new SequenceComparator<Tokens>() {
+            @Override
+            public boolean equals(Tokens a, int ai, Tokens b, int bi) {
+                int length = a.ends[ai] - a.starts[ai];
+                return a.hashes[ai] == b.hashes[bi]
+                        && b.ends[bi] - b.starts[bi] == length
+                        && a.text.regionMatches(a.starts[ai], b.text, b.starts[bi], length);
+            }
+
+            @Override
+            public int hash(Tokens seq, int i) {
+                return seq.hashes[i];
+            }
+        };
+
+        final String text;
+        int[] starts = new int[64];
+        int[] ends = new int[64];
+        int[] hashes = new int[64];
+        int[] lines = new int[64];
+        int size;
+
+        private Tokens(String text) {
+            this.text = text;
+        }
+
+        static Tokens of(String body) {
+            Tokens tokens = new Tokens(body);
+            if (body.isEmpty()) {
+                return tokens;
+            }
+            IScanner scanner = ToolFactory.createScanner(false, false, false, false);
+            scanner.setSource(body.toCharArray());
+            // line of the current offset, advanced as tokens come in order
+            int line = 0;
+            int lineScanned = 0;
+            try {
+                while (scanner.getNextToken() != ITerminalSymbols.TokenNameEOF) {
+                    int start = scanner.getCurrentTokenStartPosition();
+                    for (; lineScanned < start; lineScanned++) {
+                        if (body.charAt(lineScanned) == '\n') line++;
+                    }
+                    tokens.add(start, scanner.getCurrentTokenEndPosition() + 1, line);
+                }
+            } catch (InvalidInputException e) {
+                // unterminated literal or comment: keep the rest as one token
+                int start = scanner.getCurrentTokenStartPosition();
+                for (; lineScanned < start; lineScanned++) {
+                    if (body.charAt(lineScanned) == '\n') line++;
+                }
+                tokens.add(start, body.length(), line);
+            }
+            return tokens;
+        }
+
+        private void add(int start, int end, int line) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+                lines = Arrays.copyOf(lines, size * 2);
+            }
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + text.charAt(i);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            hashes[size] = h;
+            lines[size] = line;
+            size++;
+        }
+
+        /** Distinct lines of tokens [begin, end) after line after. */
+        int countLines(int begin, int end, int after) {
+            int count = 0;
+            int last = after;
+            for (int i = begin; i < end; i++) {
+                if (lines[i] != last) {
+                    count++;
+                    last = lines[i];
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
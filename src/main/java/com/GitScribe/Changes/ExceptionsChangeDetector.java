@@ -1,32 +1,31 @@
 package com.GitScribe.Changes;
 
+import com.GitScribe.Service.MethodSnapshot;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ExceptionsChangeDetector {
 
     /**
-     * Compares two method declarations and returns ["Exceptions Change"]
+     * Compares two versions of a method and returns ["Exceptions Change"]
      * if their throws‑clauses differ.
      *
-     * @param oldDecl full old method declaration string
-     * @param newDecl full new method declaration string
+     * @param oldMethod old version of the method, or null if absent
+     * @param newMethod new version of the method, or null if absent
      */
-    public static List<String> detectExceptionsChange(String oldDecl, String newDecl) {
+    public static List<String> detectExceptionsChange(MethodSnapshot oldMethod, MethodSnapshot newMethod) {
         List<String> changes = new ArrayList<>();
-        String oldThrows = extractThrows(oldDecl);
-        String newThrows = extractThrows(newDecl);
+        List<String> oldThrows = thrownTypes(oldMethod);
+        List<String> newThrows = thrownTypes(newMethod);
         if (!oldThrows.equals(newThrows)) {
             changes.add("Exceptions Change");
         }
         return changes;
     }
 
-    // Helper to pull out everything after 'throws' in the signature (or "" if none)
-    private static String extractThrows(String decl) {
-        String lower = decl.toLowerCase();
-        int idx = lower.indexOf("throws");
-        if (idx < 0) return "";
-        return decl.substring(idx).trim();
+    // Types in the throws clause (none if the method is absent)
+    private static List<String> thrownTypes(MethodSnapshot method) {
+        return method != null ? method.getThrownTypes() : Collections.emptyList();
     }
 }
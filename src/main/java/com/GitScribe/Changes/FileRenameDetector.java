@@ -1,11 +1,9 @@
 package com.GitScribe.Changes;
 
-import com.GitScribe.Service.GitHubService;
-import com.GitScribe.Service.JDTParser;
-import com.GitScribe.Service.MethodDeclarationData;
+import com.GitScribe.Service.MethodMoveIndex;
 import com.GitScribe.Util.ComprehensiveMethodChangeUtil;
+import com.GitScribe.Util.StringSimilarity;
 
-import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -15,21 +13,18 @@ import java.util.List;
 public class FileRenameDetector {
 
     /**
-     * Scans modified files for a matching method based on signature and body similarity.
-     * Only considers .java files and skips unreadable paths.
+     * Looks for the method among the methods of the files a commit pair changed, indexed
+     * once per pair so that every method that disappears in it searches the same index:
+     * only the methods with the baseline's signature are compared, the most similar few
+     * if there are many, and the path of the one whose body is most similar to the
+     * baseline's is returned.
      *
      * @param baselineBlock    The method block (code) from the previous commit.
      * @param targetMethodName The name of the target method.
-     * @param modifiedFiles    List of file paths modified in the commit.
-     * @param gitHubService    Service to fetch file contents.
+     * @param index            Methods of the files changed in the commit pair.
      * @return The new file path containing the method, or null if not found.
      */
-    public static String detectFileRename(
-            String baselineBlock,
-            String targetMethodName,
-            List<String> modifiedFiles,
-            GitHubService gitHubService
-    ) {
+    public static String detectFileRename(String baselineBlock, String targetMethodName, MethodMoveIndex index) {
         // extract method signature and body
         String baselineSignature = ComprehensiveMethodChangeUtil.extractSignature(baselineBlock);
         String baselineBody      = ComprehensiveMethodChangeUtil.extractBody(baselineBlock);
@@ -37,55 +32,23 @@ public class FileRenameDetector {
             return null;
         }
 
-        for (String filePath : modifiedFiles) {
-            // only inspect Java files
-            if (!filePath.endsWith(".java")) {
-                continue;
-            }
-
-            String fileContent;
-            try {
-                fileContent = gitHubService.getFileContent(filePath);
-            } catch (IOException e) {
-                // skip unreadable files
-                continue;
-            }
-            if (fileContent.isEmpty()) {
-                continue;
-            }
-
-            // parse methods in the candidate file
-            List<MethodDeclarationData> methods = JDTParser.getMethods(fileContent);
-            for (MethodDeclarationData md : methods) {
-                String candSig  = ComprehensiveMethodChangeUtil.extractSignature(md.getBody());
-                String candBody = ComprehensiveMethodChangeUtil.extractBody(md.getBody());
-
-                // match signature exactly
-                if (!candSig.equals(baselineSignature)) {
-                    continue;
-                }
-                // check body similarity threshold (e.g., ≥ 0.50)
-                double similarity = ComprehensiveMethodChangeUtil.jaroWinklerDistance(baselineBody, candBody);
-                if (similarity >= 0.50) { // similarity of 70% of the same method in diff file
-                    return filePath;
-                }
+        // candidates match the signature exactly; of those whose body similarity reaches
+        // 0.50 the most similar wins, the better ranked one among equals
+        String bestPath = null;
+        double bestSimilarity = 0.50;
+        for (MethodMoveIndex.Candidate candidate : index.candidates(baselineSignature, baselineBody)) {
+            // below the best so far the similarity is only bounded, not computed
+            double similarity = StringSimilarity.jaroWinkler(baselineBody, candidate.getBody(), bestSimilarity);
+            if (bestPath == null ? similarity >= bestSimilarity : similarity > bestSimilarity) {
+                bestPath = candidate.getPath();
+                bestSimilarity = similarity;
             }
         }
-        return null;
+        return bestPath;
     }
 
-    /**
-     * Wrapper to expose rename detection as a change-type list.
-     *
-     * @return singleton list ["File Renamed: <newPath>"] if rename detected, else empty list.
-     */
-    public static List<String> detectFileRenameChangeTypes(
-            String baselineBlock,
-            String targetMethodName,
-            List<String> modifiedFiles,
-            GitHubService gitHubService
-    ) {
-        String newPath = detectFileRename(baselineBlock, targetMethodName, modifiedFiles, gitHubService);
+    /** Change types of a detected rename: ["File Renamed"] if newPath is not null, else empty. */
+    public static List<String> fileRenameChangeTypes(String newPath) {
         if (newPath != null) {
             return Collections.singletonList("File Renamed");
         }
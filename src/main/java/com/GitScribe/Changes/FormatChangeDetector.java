@@ -0,0 +1,35 @@
+package com.GitScribe.Changes;
+
+import com.GitScribe.Service.MethodFingerprint;
+import com.GitScribe.Service.MethodSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FormatChangeDetector {
+
+    /**
+     * For two versions of a method with the same code tokens, tells a comment edit
+     * ("Comment Only") from a whitespace-only change ("Format Only"). Returns an empty
+     * list if the code differs (other detectors apply), the text is identical, or either
+     * version is absent.
+     */
+    public static List<String> detectFormatChanges(MethodSnapshot oldMethod, MethodSnapshot newMethod) {
+        if (oldMethod == null || newMethod == null) {
+            return new ArrayList<>();
+        }
+        return detectFormatChanges(oldMethod.getFingerprint(), newMethod.getFingerprint());
+    }
+
+    public static List<String> detectFormatChanges(MethodFingerprint oldPrint, MethodFingerprint newPrint) {
+        List<String> changes = new ArrayList<>();
+        if (!oldPrint.hasSameCode(newPrint)) {
+            return changes;
+        }
+        if (!oldPrint.hasSameTokens(newPrint)) {
+            changes.add("Comment Only");
+        } else if (!oldPrint.hasSameText(newPrint)) {
+            changes.add("Format Only");
+        }
+        return changes;
+    }
+}
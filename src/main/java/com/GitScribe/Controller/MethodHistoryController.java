@@ -11,8 +11,9 @@ import org.springframework.http.MediaType;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -22,6 +23,9 @@ public class MethodHistoryController {
     @Autowired
     private MethodHistoryService methodHistoryService;
 
+    @Autowired
+    private MethodOriginService methodOriginService;
+
     @Autowired
     private CloneService cloneService;
 
@@ -34,6 +38,9 @@ public class MethodHistoryController {
     @Autowired
     private GitHubService gitHubService;
 
+    @Autowired
+    private RepositorySessionRegistry sessionRegistry;
+
 
     /**
      * JSON endpoint: returns the method history data for a given file.
@@ -64,6 +71,36 @@ public class MethodHistoryController {
         }
     }
 
+    /**
+     * Origin endpoints: the commit that introduced a method and the one that last modified
+     * it, found by blaming the method's lines instead of building its whole history.
+     * signature (e.g. "put(K,V)") selects an overload; without it the first method with
+     * that name is used.
+     */
+    @GetMapping("/introduced")
+    public ResponseEntity<?> getIntroduced(@RequestParam String repoDirPath, @RequestParam String filePath,
+                                           @RequestParam String methodName,
+                                           @RequestParam(required = false) String signature) {
+        try {
+            return ResponseEntity.ok(methodOriginService.getIntroduced(repoDirPath, filePath, methodName, signature));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error finding introducing commit: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/last-modified")
+    public ResponseEntity<?> getLastModified(@RequestParam String repoDirPath, @RequestParam String filePath,
+                                             @RequestParam String methodName,
+                                             @RequestParam(required = false) String signature) {
+        try {
+            return ResponseEntity.ok(methodOriginService.getLastModified(repoDirPath, filePath, methodName, signature));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error finding last modifying commit: " + e.getMessage());
+        }
+    }
+
     /**
      * HTML UI endpoint: displays method history with dropdowns and clickable commit links.
      */
@@ -75,15 +112,17 @@ public class MethodHistoryController {
     }
 
     /**
-     * Clone endpoint: the client provides a repository URL, the repo is cloned into a temporary folder,
-     * and the absolute local path of the clone is returned.
+     * Clone endpoint: the client provides a repository URL and gets the absolute local path
+     * of its clone. Clones are cached per URL; a repeated request only fetches new commits.
+     * With bare=true the clone has no working tree and every read comes from the object database.
      */
     @PostMapping("/clone")
-    public ResponseEntity<String> cloneRepository(@RequestParam String repoUrl) {
+    public ResponseEntity<String> cloneRepository(@RequestParam String repoUrl,
+                                                  @RequestParam(required = false) Boolean bare) {
         try {
-            String folderName = UUID.randomUUID().toString(); // create unique directory
-            String tempDir = System.getProperty("java.io.tmpdir") + "/" + folderName;
-            File clonedRepo = cloneService.cloneRepository(repoUrl, tempDir);
+            File clonedRepo = bare == null
+                    ? cloneService.getOrCloneRepository(repoUrl)
+                    : cloneService.getOrCloneRepository(repoUrl, bare);
             return ResponseEntity.ok(clonedRepo.getAbsolutePath());
         } catch (Exception e) {
             e.printStackTrace();
@@ -91,6 +130,19 @@ public class MethodHistoryController {
         }
     }
 
+    /**
+     * Clone store endpoint: disk usage against the budget and clone/eviction counters.
+     */
+    @GetMapping("/clone/stats")
+    public ResponseEntity<?> getCloneStoreStats() {
+        try {
+            return ResponseEntity.ok(cloneService.getStoreStats());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error reading clone store: " + e.getMessage());
+        }
+    }
+
     /**
      * List files endpoint: returns a list of file paths from the given repository directory.
      */
@@ -107,5 +159,56 @@ public class MethodHistoryController {
         }
     }
 
+    /**
+     * Cache statistics endpoint: hit/miss/eviction counters of the shared caches, and
+     * how much parsing was done header-only versus with bodies, and what the bisection
+     * history search saved.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("blobs", gitHubService.getBlobCacheStats());
+        stats.put("changeSets", gitHubService.getChangeSetCacheStats());
+        stats.put("fileHistories", gitHubService.getFileHistoryCacheStats());
+        stats.put("parses", JDTParser.getCacheStats());
+        stats.put("parseTiers", JDTParser.getTierStats());
+        stats.put("historySearch", methodHistoryService.getSearchStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Changed-path index endpoints: counters, rebuild and verification of the
+     * per-commit Bloom filter index stored next to a local clone.
+     */
+    @GetMapping("/index/stats")
+    public ResponseEntity<?> getIndexStats(@RequestParam String repoDirPath) {
+        try (RepositorySession session = sessionRegistry.acquire(repoDirPath)) {
+            return ResponseEntity.ok(session.getChangedPathIndex().getStats());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error reading index: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/index/rebuild")
+    public ResponseEntity<?> rebuildIndex(@RequestParam String repoDirPath) {
+        try (RepositorySession session = sessionRegistry.acquire(repoDirPath)) {
+            ChangedPathIndex index = session.getChangedPathIndex();
+            index.rebuild();
+            return ResponseEntity.ok(index.getStats());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error rebuilding index: " + e.getMessage());
+        }
+    }
 
+    @GetMapping("/index/verify")
+    public ResponseEntity<?> verifyIndex(@RequestParam String repoDirPath) {
+        try (RepositorySession session = sessionRegistry.acquire(repoDirPath)) {
+            return ResponseEntity.ok(session.getChangedPathIndex().verify());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error verifying index: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package com.GitScribe;
+
+import com.GitScribe.Service.ChangedPathIndex;
+import com.GitScribe.Service.FileHistory;
+import com.GitScribe.Service.FileHistoryWalker;
+import com.GitScribe.Service.RepositorySession;
+import com.GitScribe.Service.RepositorySessionRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares the sequential first-parent history walk with the segmented parallel walk
+ * on a local clone, with and without the changed-path index, and checks that both
+ * walks return the same history.
+ *
+ * Usage: HistoryScanBenchmark &lt;repoDir&gt; &lt;threads&gt; &lt;runs&gt; &lt;filePath&gt;...
+ */
+public class HistoryScanBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: HistoryScanBenchmark <repoDir> <threads> <runs> <filePath>...");
+            return;
+        }
+        String repoDir = args[0];
+        int threads = Integer.parseInt(args[1]);
+        int runs = Integer.parseInt(args[2]);
+        List<String> files = Arrays.asList(args).subList(3, args.length);
+
+        RepositorySessionRegistry registry = new RepositorySessionRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (RepositorySession session = registry.acquire(repoDir)) {
+            ChangedPathIndex index = session.getChangedPathIndex();
+            index.update();
+            for (String file : files) {
+                System.out.println("== " + file);
+                benchmark("unindexed", new FileHistoryWalker(session.getRepository()), file, executor, threads, runs);
+                benchmark("indexed", new FileHistoryWalker(session.getRepository(), index), file, executor, threads, runs);
+            }
+        } finally {
+            executor.shutdown();
+            registry.shutdown();
+        }
+    }
+
+    private static void benchmark(String label, FileHistoryWalker walker, String file, ExecutorService executor,
+                                  int threads, int runs) throws IOException {
+        // warm-up run, also used to check that both walks agree
+        FileHistory sequential = walker.walk(file);
+        FileHistory segmented = walker.walkSegmented(file, executor, threads, 1);
+        if (!sameHistory(sequential, segmented)) {
+            System.out.println(label + ": MISMATCH sequential=" + sequential.size() + " commits, segmented="
+                    + segmented.size() + " commits");
+            return;
+        }
+
+        List<Long> sequentialTimes = new ArrayList<>();
+        List<Long> segmentedTimes = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            walker.walk(file);
+            sequentialTimes.add(System.nanoTime() - start);
+
+            start = System.nanoTime();
+            walker.walkSegmented(file, executor, threads, 1);
+            segmentedTimes.add(System.nanoTime() - start);
+        }
+        long seq = median(sequentialTimes);
+        long seg = median(segmentedTimes);
+        System.out.printf("%-10s commits=%d sequential=%.1f ms segmented(%d)=%.1f ms speedup=%.2fx%n",
+                label, sequential.size(), seq / 1e6, threads, seg / 1e6, (double) seq / seg);
+    }
+
+    private static boolean sameHistory(FileHistory a, FileHistory b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.getCommit(i).equals(b.getCommit(i)) || !a.getPath(i).equals(b.getPath(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long median(List<Long> times) {
+        List<Long> sorted = new ArrayList<>(times);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+}
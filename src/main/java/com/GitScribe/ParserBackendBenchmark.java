@@ -0,0 +1,156 @@
+package com.GitScribe;
+
+import com.GitScribe.Service.BlobIdResolver;
+import com.GitScribe.Service.FileHistory;
+import com.GitScribe.Service.FileHistoryWalker;
+import com.GitScribe.Service.GitHubService;
+import com.GitScribe.Service.MethodDescriptor;
+import com.GitScribe.Service.MethodParserBackend;
+import com.GitScribe.Service.RepositorySession;
+import com.GitScribe.Service.RepositorySessionRegistry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses every distinct version of the given files with each parser backend, bypassing
+ * the parse cache, and reports parse throughput, allocation and whether the backends
+ * describe the methods identically.
+ *
+ * Usage: ParserBackendBenchmark &lt;repoDir&gt; &lt;runs&gt; &lt;filePath&gt;...
+ */
+public class ParserBackendBenchmark {
+
+    private static final String[] BACKENDS = {"jdt", "javaparser"};
+
+    // differing methods printed per file
+    private static final int MAX_REPORTED = 5;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: ParserBackendBenchmark <repoDir> <runs> <filePath>...");
+            return;
+        }
+        String repoDir = args[0];
+        int runs = Integer.parseInt(args[1]);
+        List<String> files = Arrays.asList(args).subList(2, args.length);
+
+        RepositorySessionRegistry registry = new RepositorySessionRegistry();
+        try (RepositorySession session = registry.acquire(repoDir)) {
+            for (String file : files) {
+                List<String> versions = loadVersions(session, file);
+                long bytes = 0;
+                for (String v : versions) {
+                    bytes += v.length();
+                }
+                System.out.println("== " + file + " (" + versions.size() + " versions, " + bytes / 1024 + " KiB)");
+                List<List<List<MethodDescriptor>>> outputs = new ArrayList<>();
+                for (String name : BACKENDS) {
+                    outputs.add(benchmark(MethodParserBackend.named(name), versions, bytes, runs));
+                }
+                compare(outputs.get(0), outputs.get(1));
+            }
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    /** Distinct contents of filePath along its history, oldest first, skipping oversized versions. */
+    private static List<String> loadVersions(RepositorySession session, String filePath) throws Exception {
+        FileHistory history = new FileHistoryWalker(session.getRepository()).walk(filePath);
+        List<ObjectId> blobIds = new BlobIdResolver(session.getRepository()).resolve(history.getCommits(), history.getPaths());
+        Set<ObjectId> distinct = new LinkedHashSet<>(blobIds);
+        distinct.remove(ObjectId.zeroId());
+        List<String> versions = new ArrayList<>();
+        for (ObjectId blobId : distinct) {
+            ObjectLoader loader = session.getObjectReader().open(blobId, Constants.OBJ_BLOB);
+            if (loader.getSize() <= GitHubService.DEFAULT_MAX_PARSE_BYTES) {
+                versions.add(new String(loader.getBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return versions;
+    }
+
+    private static List<List<MethodDescriptor>> benchmark(MethodParserBackend backend, List<String> versions,
+                                                          long bytes, int runs) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        // warm-up run, also kept for the comparison
+        List<List<MethodDescriptor>> output = parseAll(backend, versions);
+
+        List<Long> times = new ArrayList<>();
+        List<Long> allocations = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            parseAll(backend, versions);
+            times.add(System.nanoTime() - start);
+            allocations.add(threads.getThreadAllocatedBytes(thread) - allocated);
+        }
+        long time = median(times);
+        long allocation = median(allocations);
+        double seconds = time / 1e9;
+        System.out.printf("%-10s %8.1f ms  %7.1f files/s  %6.2f MB/s  alloc %8.1f MB/run  %8.1f MB/s  %5.1f B/source byte%n",
+                backend.getName(), time / 1e6, versions.size() / seconds, bytes / 1e6 / seconds,
+                allocation / 1e6, allocation / 1e6 / seconds, bytes == 0 ? 0.0 : (double) allocation / bytes);
+        return output;
+    }
+
+    private static List<List<MethodDescriptor>> parseAll(MethodParserBackend backend, List<String> versions) {
+        List<List<MethodDescriptor>> output = new ArrayList<>(versions.size());
+        for (String source : versions) {
+            output.add(backend.parseDescriptors(source));
+        }
+        return output;
+    }
+
+    private static void compare(List<List<MethodDescriptor>> expected, List<List<MethodDescriptor>> actual) {
+        int sameVersions = 0;
+        int methods = 0;
+        int differing = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            List<MethodDescriptor> a = expected.get(i);
+            List<MethodDescriptor> b = actual.get(i);
+            boolean same = a.size() == b.size();
+            for (int m = 0; m < Math.max(a.size(), b.size()); m++) {
+                String da = m < a.size() ? describe(a.get(m)) : "-";
+                String db = m < b.size() ? describe(b.get(m)) : "-";
+                methods++;
+                if (!da.equals(db)) {
+                    same = false;
+                    if (differing++ < MAX_REPORTED) {
+                        System.out.println("  version " + i + " method " + m + ":\n    " + BACKENDS[0] + " " + da
+                                + "\n    " + BACKENDS[1] + " " + db);
+                    }
+                }
+            }
+            if (same) {
+                sameVersions++;
+            }
+        }
+        System.out.println("equivalent: " + sameVersions + "/" + expected.size() + " versions, "
+                + (methods - differing) + "/" + methods + " methods");
+    }
+
+    private static String describe(MethodDescriptor m) {
+        return m.getName() + " " + m.getParameterList() + " types=" + m.getParameterTypes()
+                + " modifiers=" + m.getModifiers() + m.getModifierList() + " returns=" + m.getReturnType()
+                + " throws=" + m.getThrownTypes() + (m.isConstructor() ? " constructor" : "")
+                + " at=" + m.getStartOffset() + "+" + m.getLength() + " lines=" + m.getStartLine() + "-" + m.getEndLine()
+                + " hash=" + Long.toHexString(m.getBodyHash());
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,164 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Content-addressed cache of decoded blob contents, shared by all repositories
+ * (a blob id identifies its content everywhere), bounded by a byte budget with
+ * LRU eviction.
+ *
+ * Alongside it sits a memo from (commit, path) to blob id, so repeated lookups
+ * of the same file version skip both the tree walk and the UTF-8 decode.
+ * A commit id fixes its tree, so this memo is repository-independent as well.
+ * Missing files are memoized as {@link ObjectId#zeroId()}.
+ *
+ * All methods are safe for concurrent use.
+ */
+public class BlobCache {
+
+    /** Default byte budget for decoded contents. */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    /** Default number of (commit, path) → blob id entries kept. */
+    public static final int DEFAULT_MAX_PATH_ENTRIES = 200_000;
+
+    private final long maxBytes;
+    private final int maxPathEntries;
+
+    private final LinkedHashMap<ObjectId, Entry> contents = new LinkedHashMap<>(1024, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private final LinkedHashMap<CommitPath, ObjectId> blobIds;
+    private long pathHits;
+    private long pathMisses;
+
+    public BlobCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_MAX_PATH_ENTRIES);
+    }
+
+    public BlobCache(long maxBytes, int maxPathEntries) {
+        this.maxBytes = maxBytes;
+        this.maxPathEntries = maxPathEntries;
+        this.blobIds = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CommitPath, ObjectId> eldest) {
+                return size() > BlobCache.this.maxPathEntries;
+            }
+        };
+    }
+
+    /** Returns the cached content of blobId, or null. */
+    public String getContent(AnyObjectId blobId) {
+        synchronized (contents) {
+            Entry e = contents.get(blobId);
+            if (e == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return e.content;
+        }
+    }
+
+    /**
+     * Caches the decoded content of blobId. rawSize is the blob's size in bytes and
+     * is what counts against the budget. Contents larger than the whole budget are not kept.
+     */
+    public void putContent(AnyObjectId blobId, String content, long rawSize) {
+        if (rawSize > maxBytes) {
+            return;
+        }
+        synchronized (contents) {
+            ObjectId key = blobId.copy();
+            Entry previous = contents.put(key, new Entry(content, rawSize));
+            if (previous != null) {
+                currentBytes -= previous.size;
+            }
+            currentBytes += rawSize;
+            Iterator<Entry> it = contents.values().iterator();
+            while (currentBytes > maxBytes && it.hasNext()) {
+                Entry eldest = it.next();
+                it.remove();
+                currentBytes -= eldest.size;
+                evictions++;
+            }
+        }
+    }
+
+    /** Returns the memoized blob id of path at commitId (zeroId if the file is absent), or null. */
+    public ObjectId getBlobId(AnyObjectId commitId, String path) {
+        synchronized (blobIds) {
+            ObjectId id = blobIds.get(new CommitPath(commitId, path));
+            if (id == null) {
+                pathMisses++;
+            } else {
+                pathHits++;
+            }
+            return id;
+        }
+    }
+
+    public void putBlobId(AnyObjectId commitId, String path, AnyObjectId blobId) {
+        synchronized (blobIds) {
+            blobIds.put(new CommitPath(commitId.copy(), path), blobId.copy());
+        }
+    }
+
+    public BlobCacheStats getStats() {
+        BlobCacheStats stats = new BlobCacheStats();
+        synchronized (contents) {
+            stats.setEntries(contents.size());
+            stats.setBytes(currentBytes);
+            stats.setMaxBytes(maxBytes);
+            stats.setHits(hits);
+            stats.setMisses(misses);
+            stats.setEvictions(evictions);
+        }
+        synchronized (blobIds) {
+            stats.setPathEntries(blobIds.size());
+            stats.setPathHits(pathHits);
+            stats.setPathMisses(pathMisses);
+        }
+        return stats;
+    }
+
+    private static final class Entry {
+        final String content;
+        final long size;
+
+        Entry(String content, long size) {
+            this.content = content;
+            this.size = size;
+        }
+    }
+
+    private static final class CommitPath {
+        final AnyObjectId commitId;
+        final String path;
+
+        CommitPath(AnyObjectId commitId, String path) {
+            this.commitId = commitId;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CommitPath)) return false;
+            CommitPath other = (CommitPath) o;
+            return commitId.equals(other.commitId) && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * commitId.hashCode() + path.hashCode();
+        }
+    }
+}
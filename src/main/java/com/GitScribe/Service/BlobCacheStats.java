@@ -0,0 +1,42 @@
+package com.GitScribe.Service;
+
+/** Counters reported by {@link BlobCache}. */
+public class BlobCacheStats {
+    private int entries;
+    private long bytes;
+    private long maxBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int pathEntries;
+    private long pathHits;
+    private long pathMisses;
+
+    public int getEntries() { return entries; }
+    public void setEntries(int entries) { this.entries = entries; }
+
+    public long getBytes() { return bytes; }
+    public void setBytes(long bytes) { this.bytes = bytes; }
+
+    public long getMaxBytes() { return maxBytes; }
+    public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    /** Number of memoized (commit, path) → blob id lookups. */
+    public int getPathEntries() { return pathEntries; }
+    public void setPathEntries(int pathEntries) { this.pathEntries = pathEntries; }
+
+    public long getPathHits() { return pathHits; }
+    public void setPathHits(long pathHits) { this.pathHits = pathHits; }
+
+    public long getPathMisses() { return pathMisses; }
+    public void setPathMisses(long pathMisses) { this.pathMisses = pathMisses; }
+}
@@ -0,0 +1,131 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the blob id of a (possibly renamed) path at every commit of a list in one pass.
+ *
+ * Each lookup descends from the root tree one path component at a time. When a tree
+ * at some depth has the same id as for the previous commit (and the path is the same),
+ * the previous result is reused; otherwise (tree id, name) lookups are memoized for the
+ * whole pass, so a directory that did not change is searched at most once.
+ * Commits where the path does not exist (or is not a file) yield {@link ObjectId#zeroId()}.
+ */
+public class BlobIdResolver {
+
+    private static final TreeEntry MISSING = new TreeEntry(ObjectId.zeroId(), 0);
+
+    private final Repository repo;
+
+    public BlobIdResolver(Repository repo) {
+        this.repo = repo;
+    }
+
+    public List<ObjectId> resolve(List<RevCommit> commits, List<String> paths) throws IOException {
+        if (commits.size() != paths.size()) {
+            throw new IllegalArgumentException("commits and paths must have the same size");
+        }
+        List<ObjectId> blobIds = new ArrayList<>(commits.size());
+        Map<ObjectId, Map<String, TreeEntry>> parsedTrees = new HashMap<>();
+
+        try (ObjectReader reader = repo.newObjectReader();
+             RevWalk revWalk = new RevWalk(reader)) {
+            CanonicalTreeParser parser = new CanonicalTreeParser();
+            String previousPath = null;
+            ObjectId[] previousTrees = new ObjectId[0];
+            ObjectId previousBlob = null;
+
+            for (int i = 0; i < commits.size(); i++) {
+                RevCommit commit = commits.get(i);
+                if (commit.getTree() == null) {
+                    revWalk.parseHeaders(commit);
+                }
+                String path = paths.get(i);
+                String[] names = path.split("/");
+                ObjectId[] trees = new ObjectId[names.length];
+                boolean samePath = path.equals(previousPath);
+
+                ObjectId current = commit.getTree().copy();
+                ObjectId blob = null;
+                for (int depth = 0; depth < names.length; depth++) {
+                    trees[depth] = current;
+                    if (samePath && current.equals(previousTrees[depth])) {
+                        // identical subtree as for the previous commit: the rest of the walk is the same
+                        System.arraycopy(previousTrees, depth, trees, depth, names.length - depth);
+                        blob = previousBlob;
+                        break;
+                    }
+                    TreeEntry entry = lookup(parsedTrees, parser, reader, current, names[depth]);
+                    boolean last = depth == names.length - 1;
+                    int expectedType = last ? Constants.OBJ_BLOB : Constants.OBJ_TREE;
+                    if (entry == null || FileMode.fromBits(entry.mode).getObjectType() != expectedType) {
+                        blob = ObjectId.zeroId();
+                        // deeper levels do not exist; keep the array free of stale ids
+                        for (int d = depth + 1; d < names.length; d++) {
+                            trees[d] = ObjectId.zeroId();
+                        }
+                        break;
+                    }
+                    if (last) {
+                        blob = entry.id;
+                    } else {
+                        current = entry.id;
+                    }
+                }
+
+                blobIds.add(blob);
+                previousPath = path;
+                previousTrees = trees;
+                previousBlob = blob;
+            }
+        }
+        return blobIds;
+    }
+
+    private static TreeEntry lookup(Map<ObjectId, Map<String, TreeEntry>> parsedTrees, CanonicalTreeParser parser,
+                                    ObjectReader reader, ObjectId treeId, String name) throws IOException {
+        Map<String, TreeEntry> entries = parsedTrees.computeIfAbsent(treeId, k -> new HashMap<>());
+        TreeEntry entry = entries.get(name);
+        if (entry == null) {
+            entry = MISSING;
+            byte[] wanted = Constants.encode(name);
+            byte[] buffer = new byte[wanted.length];
+            for (parser.reset(reader, treeId); !parser.eof(); parser.next(1)) {
+                if (parser.getNameLength() != wanted.length) {
+                    continue;
+                }
+                parser.getName(buffer, 0);
+                if (Arrays.equals(buffer, wanted)) {
+                    entry = new TreeEntry(parser.getEntryObjectId(), parser.getEntryRawMode());
+                    break;
+                }
+            }
+            entries.put(name, entry);
+        }
+        return entry == MISSING ? null : entry;
+    }
+
+    private static final class TreeEntry {
+        final ObjectId id;
+        final int mode;
+
+        TreeEntry(ObjectId id, int mode) {
+            this.id = id;
+            this.mode = mode;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Cache of {@link CommitChangeSet}s keyed by (old commit, new commit), bounded by
+ * entry count with LRU eviction. Commit ids fix both trees, so entries are valid
+ * for any repository and are shared by every method and every concurrent request.
+ *
+ * A pair is computed exactly once: concurrent callers asking for a pair that is
+ * still being computed wait for that computation instead of starting their own.
+ */
+public class ChangeSetCache {
+
+    /** Default number of commit pairs kept. */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    /** Computes the change set of a pair on a cache miss. */
+    public interface Loader {
+        CommitChangeSet load() throws IOException;
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, CompletableFuture<CommitChangeSet>> entries =
+            new LinkedHashMap<>(256, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ChangeSetCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ChangeSetCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public CommitChangeSet get(AnyObjectId oldCommit, AnyObjectId newCommit, Loader loader) throws IOException {
+        Key key = new Key(oldCommit.copy(), newCommit.copy());
+        CompletableFuture<CommitChangeSet> future;
+        boolean owner = false;
+        synchronized (entries) {
+            future = entries.get(key);
+            if (future == null) {
+                misses++;
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                owner = true;
+                Iterator<CompletableFuture<CommitChangeSet>> it = entries.values().iterator();
+                while (entries.size() > maxEntries && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    evictions++;
+                }
+            } else {
+                hits++;
+            }
+        }
+
+        if (owner) {
+            try {
+                future.complete(loader.load());
+            } catch (IOException | RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(key, future);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
+    }
+
+    public ChangeSetCacheStats getStats() {
+        ChangeSetCacheStats stats = new ChangeSetCacheStats();
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+            stats.setMaxEntries(maxEntries);
+            stats.setHits(hits);
+            stats.setMisses(misses);
+            stats.setEvictions(evictions);
+        }
+        return stats;
+    }
+
+    private static final class Key {
+        final ObjectId oldCommit;
+        final ObjectId newCommit;
+
+        Key(ObjectId oldCommit, ObjectId newCommit) {
+            this.oldCommit = oldCommit;
+            this.newCommit = newCommit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return oldCommit.equals(other.oldCommit) && newCommit.equals(other.newCommit);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * oldCommit.hashCode() + newCommit.hashCode();
+        }
+    }
+}
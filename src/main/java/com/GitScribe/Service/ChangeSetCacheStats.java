@@ -0,0 +1,25 @@
+package com.GitScribe.Service;
+
+/** Counters reported by {@link ChangeSetCache}. */
+public class ChangeSetCacheStats {
+    private int entries;
+    private int maxEntries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public int getEntries() { return entries; }
+    public void setEntries(int entries) { this.entries = entries; }
+
+    public int getMaxEntries() { return maxEntries; }
+    public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+}
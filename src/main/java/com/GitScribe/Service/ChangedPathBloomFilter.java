@@ -0,0 +1,157 @@
+package com.GitScribe.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Bloom filter over the paths a single commit changed relative to its first parent,
+ * modelled on git's commit-graph changed-path filters: every changed path and each of
+ * its leading directories is added, 10 bits per entry, 7 hash functions (murmur3,
+ * double hashing). A negative answer is definite; a positive answer may be a false positive.
+ */
+public class ChangedPathBloomFilter {
+
+    static final int BITS_PER_ENTRY = 10;
+    static final int NUM_HASHES = 7;
+    /** Commits changing more paths than this get a filter that always answers "maybe". */
+    static final int MAX_CHANGED_PATHS = 512;
+
+    private static final int SEED_1 = 0x293ae76f;
+    private static final int SEED_2 = 0x7e646e2c;
+
+    private static final ChangedPathBloomFilter TOO_LARGE = new ChangedPathBloomFilter(null);
+
+    /** null means "too large": every query answers maybe. */
+    private final long[] bits;
+
+    private ChangedPathBloomFilter(long[] bits) {
+        this.bits = bits;
+    }
+
+    /** Builds a filter for the given changed paths (leading directories are added automatically). */
+    public static ChangedPathBloomFilter build(Collection<String> changedPaths) {
+        if (changedPaths.size() > MAX_CHANGED_PATHS) {
+            return TOO_LARGE;
+        }
+        Set<String> entries = new HashSet<>();
+        for (String path : changedPaths) {
+            entries.add(path);
+            for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+                if (!entries.add(path.substring(0, slash))) {
+                    break;
+                }
+            }
+        }
+        if (entries.size() > MAX_CHANGED_PATHS) {
+            return TOO_LARGE;
+        }
+        int words = Math.max(1, (entries.size() * BITS_PER_ENTRY + 63) / 64);
+        long[] bits = new long[words];
+        if (entries.isEmpty()) {
+            return new ChangedPathBloomFilter(bits);
+        }
+        for (String entry : entries) {
+            byte[] key = entry.getBytes(StandardCharsets.UTF_8);
+            int h1 = murmur3(key, SEED_1);
+            int h2 = murmur3(key, SEED_2);
+            long bitCount = (long) words * 64;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int bit = (int) (Integer.toUnsignedLong(h1 + i * h2) % bitCount);
+                bits[bit >>> 6] |= 1L << (bit & 63);
+            }
+        }
+        return new ChangedPathBloomFilter(bits);
+    }
+
+    /** Restores a filter from its serialized words; null restores a "too large" filter. */
+    static ChangedPathBloomFilter fromWords(long[] words) {
+        return words == null ? TOO_LARGE : new ChangedPathBloomFilter(words);
+    }
+
+    /** Serialized form, or null for a "too large" filter. */
+    long[] words() {
+        return bits;
+    }
+
+    public boolean isTooLarge() {
+        return bits == null;
+    }
+
+    /** @return false if the commit certainly did not change path; true if it may have. */
+    public boolean mightContain(String path) {
+        if (bits == null) {
+            return true;
+        }
+        byte[] key = path.getBytes(StandardCharsets.UTF_8);
+        int h1 = murmur3(key, SEED_1);
+        int h2 = murmur3(key, SEED_2);
+        long bitCount = (long) bits.length * 64;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int bit = (int) (Integer.toUnsignedLong(h1 + i * h2) % bitCount);
+            if ((bits[bit >>> 6] & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChangedPathBloomFilter)) return false;
+        return Arrays.equals(bits, ((ChangedPathBloomFilter) o).bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bits);
+    }
+
+    /** 32-bit murmur3, as used by git for changed-path filters. */
+    @SuppressWarnings("fallthrough") // the tail cases fall through on purpose, as in the reference
+    private static int murmur3(byte[] data, int seed) {
+        final int c1 = 0xcc9e2d51;
+        final int c2 = 0x1b873593;
+        int h = seed;
+        int len = data.length;
+        int blocks = len / 4;
+        for (int i = 0; i < blocks; i++) {
+            int k = (data[i * 4] & 0xff)
+                  | (data[i * 4 + 1] & 0xff) << 8
+                  | (data[i * 4 + 2] & 0xff) << 16
+                  | (data[i * 4 + 3] & 0xff) << 24;
+            k *= c1;
+            k = Integer.rotateLeft(k, 15);
+            k *= c2;
+            h ^= k;
+            h = Integer.rotateLeft(h, 13);
+            h = h * 5 + 0xe6546b64;
+        }
+        int k = 0;
+        int tail = blocks * 4;
+        switch (len & 3) {
+            case 3:
+                k ^= (data[tail + 2] & 0xff) << 16;
+            case 2:
+                k ^= (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k ^= (data[tail] & 0xff);
+                k *= c1;
+                k = Integer.rotateLeft(k, 15);
+                k *= c2;
+                h ^= k;
+            default:
+                break;
+        }
+        h ^= len;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
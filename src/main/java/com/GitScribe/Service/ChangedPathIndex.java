@@ -0,0 +1,310 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent per-commit changed-path Bloom filter index for one repository.
+ *
+ * The index covers HEAD's first-parent chain, keyed by commit id. It is stored in
+ * {@code <gitDir>/gitscribe/changed-paths.idx}, built in the background when the
+ * repository is cloned or refreshed and extended incrementally when HEAD moves: the walk
+ * stops at the first commit already indexed, since every indexed commit's first-parent
+ * ancestors are indexed as well. Commits an update has not reached yet read as not
+ * indexed, and history walks compare their trees as usual.
+ */
+public class ChangedPathIndex {
+
+    private static final int MAGIC = 0x47534350; // "GSCP"
+    private static final int VERSION = 1;
+    private static final String INDEX_DIR = "gitscribe";
+    private static final String INDEX_FILE = "changed-paths.idx";
+
+    private final Repository repo;
+    private final File indexFile;
+    private final Map<ObjectId, ChangedPathBloomFilter> filters = new ConcurrentHashMap<>();
+    private final AtomicBoolean updateQueued = new AtomicBoolean();
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong definiteNegatives = new AtomicLong();
+    private final AtomicLong maybes = new AtomicLong();
+    private final AtomicLong tooLarge = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong notIndexed = new AtomicLong();
+
+    private ChangedPathIndex(Repository repo) {
+        this.repo = repo;
+        this.indexFile = new File(new File(repo.getDirectory(), INDEX_DIR), INDEX_FILE);
+    }
+
+    /** Opens the index stored next to the repository, loading it from disk if present. */
+    public static ChangedPathIndex open(Repository repo) {
+        ChangedPathIndex index = new ChangedPathIndex(repo);
+        try {
+            index.load();
+        } catch (IOException e) {
+            // a corrupt or unreadable index is simply rebuilt on the next update
+            System.out.println("ChangedPathIndex: discarding unreadable index " + index.indexFile + ": " + e.getMessage());
+            index.filters.clear();
+        }
+        return index;
+    }
+
+    /**
+     * Indexes every first-parent commit reachable from HEAD that is not indexed yet
+     * and persists the index if anything was added.
+     *
+     * @return the number of commits added.
+     */
+    public synchronized int update() throws IOException {
+        ObjectId headId = repo.resolve(Constants.HEAD);
+        if (headId == null) {
+            return 0;
+        }
+        Map<ObjectId, ChangedPathBloomFilter> added = new LinkedHashMap<>();
+        try (ObjectReader reader = repo.newObjectReader();
+             RevWalk revWalk = new RevWalk(reader);
+             TreeWalk treeWalk = new TreeWalk(repo, reader)) {
+            revWalk.setRetainBody(false);
+            revWalk.setFirstParent(true);
+            revWalk.markStart(revWalk.parseCommit(headId));
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+
+            RevCommit commit;
+            while ((commit = revWalk.next()) != null) {
+                if (filters.containsKey(commit)) {
+                    break;
+                }
+                added.put(commit.copy(), ChangedPathBloomFilter.build(changedPaths(revWalk, treeWalk, commit)));
+            }
+        }
+        if (!added.isEmpty()) {
+            filters.putAll(added);
+            save();
+        }
+        return added.size();
+    }
+
+    /**
+     * Submits {@link #update()} to executor unless one is already queued, and returns at
+     * once; whenDone runs after it, whether it succeeded or not. A failed update is logged
+     * and leaves the index as it was.
+     *
+     * @return false if nothing was submitted, in which case whenDone is not run.
+     */
+    public boolean updateInBackground(Executor executor, Runnable whenDone) {
+        if (!updateQueued.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                // once running, a later request queues another update for commits HEAD gains meanwhile
+                updateQueued.set(false);
+                try {
+                    int added = update();
+                    if (added > 0) {
+                        System.out.println("ChangedPathIndex: indexed " + added + " commits of " + repo.getDirectory());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("ChangedPathIndex: update of " + indexFile + " failed: " + e.getMessage());
+                } finally {
+                    whenDone.run();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            updateQueued.set(false);
+            return false;
+        }
+    }
+
+    /** Drops the index (in memory and on disk) and builds it again from HEAD. */
+    public synchronized int rebuild() throws IOException {
+        filters.clear();
+        Files.deleteIfExists(indexFile.toPath());
+        return update();
+    }
+
+    /** Recomputes the filter of every indexed commit and compares it with the stored one. */
+    public synchronized ChangedPathIndexVerification verify() throws IOException {
+        int checked = 0;
+        List<String> mismatched = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        try (ObjectReader reader = repo.newObjectReader();
+             RevWalk revWalk = new RevWalk(reader);
+             TreeWalk treeWalk = new TreeWalk(repo, reader)) {
+            revWalk.setRetainBody(false);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            for (Map.Entry<ObjectId, ChangedPathBloomFilter> e : filters.entrySet()) {
+                RevCommit commit;
+                try {
+                    commit = revWalk.parseCommit(e.getKey());
+                } catch (IOException notFound) {
+                    missing.add(e.getKey().getName());
+                    continue;
+                }
+                checked++;
+                ChangedPathBloomFilter expected = ChangedPathBloomFilter.build(changedPaths(revWalk, treeWalk, commit));
+                if (!expected.equals(e.getValue())) {
+                    mismatched.add(commit.getName());
+                }
+            }
+        }
+        return new ChangedPathIndexVerification(checked, mismatched, missing);
+    }
+
+    /**
+     * Asks whether commit may have changed path relative to its first parent.
+     *
+     * @return FALSE if it certainly did not, TRUE if it may have (always for a commit over
+     *         the path cap, counted apart from the filter's own "maybe" answers), null if the
+     *         commit is not indexed.
+     */
+    public Boolean mightHaveChanged(AnyObjectId commitId, String path) {
+        queries.incrementAndGet();
+        ChangedPathBloomFilter filter = filters.get(commitId);
+        if (filter == null) {
+            notIndexed.incrementAndGet();
+            return null;
+        }
+        if (filter.isTooLarge()) {
+            tooLarge.incrementAndGet();
+            return Boolean.TRUE;
+        }
+        if (filter.mightContain(path)) {
+            maybes.incrementAndGet();
+            return Boolean.TRUE;
+        }
+        definiteNegatives.incrementAndGet();
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Called when a "maybe" answer for commitId turned out to be wrong after the real tree
+     * comparison. Only answers of a real filter count; a commit over the path cap has none.
+     */
+    public void recordFalsePositive(AnyObjectId commitId) {
+        ChangedPathBloomFilter filter = filters.get(commitId);
+        if (filter != null && !filter.isTooLarge()) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    public boolean contains(AnyObjectId commitId) {
+        return filters.containsKey(commitId);
+    }
+
+    public ChangedPathIndexStats getStats() {
+        ChangedPathIndexStats stats = new ChangedPathIndexStats();
+        stats.setIndexedCommits(filters.size());
+        stats.setQueries(queries.get());
+        stats.setHits(definiteNegatives.get());
+        stats.setMaybes(maybes.get());
+        stats.setTooLarge(tooLarge.get());
+        stats.setFalsePositives(falsePositives.get());
+        stats.setNotIndexed(notIndexed.get());
+        return stats;
+    }
+
+    /** Paths changed by commit relative to its first parent (or the empty tree for a root commit). */
+    private static List<String> changedPaths(RevWalk revWalk, TreeWalk treeWalk, RevCommit commit) throws IOException {
+        if (commit.getParentCount() > 0) {
+            RevCommit parent = commit.getParent(0);
+            revWalk.parseHeaders(parent);
+            treeWalk.reset(parent.getTree(), commit.getTree());
+        } else {
+            treeWalk.reset();
+            treeWalk.addTree(new EmptyTreeIterator());
+            treeWalk.addTree(commit.getTree());
+        }
+        List<String> paths = new ArrayList<>();
+        while (treeWalk.next()) {
+            paths.add(treeWalk.getPathString());
+        }
+        return paths;
+    }
+
+    private void load() throws IOException {
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unsupported index format");
+            }
+            int count = in.readInt();
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            for (int i = 0; i < count; i++) {
+                in.readFully(raw);
+                ObjectId id = ObjectId.fromRaw(raw);
+                int words = in.readInt();
+                long[] bits = null;
+                if (words >= 0) {
+                    bits = new long[words];
+                    for (int w = 0; w < words; w++) {
+                        bits[w] = in.readLong();
+                    }
+                }
+                filters.put(id, ChangedPathBloomFilter.fromWords(bits));
+            }
+        }
+    }
+
+    private void save() throws IOException {
+        File dir = indexFile.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create index directory " + dir);
+        }
+        File tmp = new File(dir, INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(filters.size());
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            for (Map.Entry<ObjectId, ChangedPathBloomFilter> e : filters.entrySet()) {
+                e.getKey().copyRawTo(raw, 0);
+                out.write(raw);
+                long[] bits = e.getValue().words();
+                if (bits == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(bits.length);
+                    for (long w : bits) {
+                        out.writeLong(w);
+                    }
+                }
+            }
+        }
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
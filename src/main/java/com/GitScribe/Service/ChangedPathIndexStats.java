@@ -0,0 +1,37 @@
+package com.GitScribe.Service;
+
+/** Counters reported by {@link ChangedPathIndex}. */
+public class ChangedPathIndexStats {
+    private int indexedCommits;
+    private long queries;
+    private long hits;
+    private long maybes;
+    private long tooLarge;
+    private long falsePositives;
+    private long notIndexed;
+
+    public int getIndexedCommits() { return indexedCommits; }
+    public void setIndexedCommits(int indexedCommits) { this.indexedCommits = indexedCommits; }
+
+    public long getQueries() { return queries; }
+    public void setQueries(long queries) { this.queries = queries; }
+
+    /** Queries answered "certainly not changed", i.e. tree comparisons skipped. */
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    /** "Maybe" answers of a filter, false positives included. */
+    public long getMaybes() { return maybes; }
+    public void setMaybes(long maybes) { this.maybes = maybes; }
+
+    /** Queries on commits that changed too many paths to have a filter, always compared. */
+    public long getTooLarge() { return tooLarge; }
+    public void setTooLarge(long tooLarge) { this.tooLarge = tooLarge; }
+
+    /** Filter "maybe" answers for which the tree comparison found no change. */
+    public long getFalsePositives() { return falsePositives; }
+    public void setFalsePositives(long falsePositives) { this.falsePositives = falsePositives; }
+
+    public long getNotIndexed() { return notIndexed; }
+    public void setNotIndexed(long notIndexed) { this.notIndexed = notIndexed; }
+}
@@ -0,0 +1,25 @@
+package com.GitScribe.Service;
+
+import java.util.List;
+
+/** Outcome of {@link ChangedPathIndex#verify()}. */
+public class ChangedPathIndexVerification {
+    private final int checkedCommits;
+    private final List<String> mismatchedCommits;
+    private final List<String> missingCommits;
+
+    public ChangedPathIndexVerification(int checkedCommits, List<String> mismatchedCommits, List<String> missingCommits) {
+        this.checkedCommits = checkedCommits;
+        this.mismatchedCommits = mismatchedCommits;
+        this.missingCommits = missingCommits;
+    }
+
+    public int getCheckedCommits() { return checkedCommits; }
+    public List<String> getMismatchedCommits() { return mismatchedCommits; }
+    /** Indexed commits that no longer exist in the object database. */
+    public List<String> getMissingCommits() { return missingCommits; }
+
+    public boolean isValid() {
+        return mismatchedCommits.isEmpty() && missingCommits.isEmpty();
+    }
+}
@@ -0,0 +1,105 @@
+package com.GitScribe.Service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Bookkeeping of a cached clone, stored as {@code <gitDir>/gitscribe/clone.properties}:
+ * the normalized URL it was cloned from, the HEAD commit after the last clone or fetch,
+ * when those happened and when the clone was last handed out (epoch millis), its size
+ * on disk, and the shared object pool it borrows objects from, if any.
+ */
+public class CloneMetadata {
+
+    private static final String METADATA_DIR = "gitscribe";
+    private static final String METADATA_FILE = "clone.properties";
+
+    private String repoUrl;
+    private String head;
+    private long clonedAt;
+    private long lastFetch;
+    private long lastUsed;
+    private long sizeBytes;
+    private String pool;
+
+    public String getRepoUrl() { return repoUrl; }
+    public void setRepoUrl(String repoUrl) { this.repoUrl = repoUrl; }
+
+    public String getHead() { return head; }
+    public void setHead(String head) { this.head = head; }
+
+    public long getClonedAt() { return clonedAt; }
+    public void setClonedAt(long clonedAt) { this.clonedAt = clonedAt; }
+
+    public long getLastFetch() { return lastFetch; }
+    public void setLastFetch(long lastFetch) { this.lastFetch = lastFetch; }
+
+    public long getLastUsed() { return lastUsed; }
+    public void setLastUsed(long lastUsed) { this.lastUsed = lastUsed; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    /** Absolute path of the object pool listed in the clone's alternates, or null. */
+    public String getPool() { return pool; }
+    public void setPool(String pool) { this.pool = pool; }
+
+    /** Metadata file of the repository whose git directory is gitDir. */
+    public static File fileFor(File gitDir) {
+        return new File(new File(gitDir, METADATA_DIR), METADATA_FILE);
+    }
+
+    /** Reads the metadata of gitDir, or returns null if there is none or it is unreadable. */
+    public static CloneMetadata read(File gitDir) {
+        File file = fileFor(gitDir);
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+            CloneMetadata metadata = new CloneMetadata();
+            metadata.setRepoUrl(props.getProperty("repoUrl"));
+            metadata.setHead(props.getProperty("head"));
+            metadata.setClonedAt(Long.parseLong(props.getProperty("clonedAt", "0")));
+            metadata.setLastFetch(Long.parseLong(props.getProperty("lastFetch", "0")));
+            metadata.setLastUsed(Long.parseLong(props.getProperty("lastUsed", "0")));
+            metadata.setSizeBytes(Long.parseLong(props.getProperty("sizeBytes", "0")));
+            metadata.setPool(props.getProperty("pool"));
+            return metadata;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("CloneMetadata: ignoring unreadable " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Writes the metadata of gitDir, replacing the previous file atomically. */
+    public void write(File gitDir) throws IOException {
+        File file = fileFor(gitDir);
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        Properties props = new Properties();
+        if (repoUrl != null) props.setProperty("repoUrl", repoUrl);
+        if (head != null) props.setProperty("head", head);
+        props.setProperty("clonedAt", Long.toString(clonedAt));
+        props.setProperty("lastFetch", Long.toString(lastFetch));
+        props.setProperty("lastUsed", Long.toString(lastUsed));
+        props.setProperty("sizeBytes", Long.toString(sizeBytes));
+        if (pool != null) props.setProperty("pool", pool);
+
+        File tmp = new File(dir, METADATA_FILE + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            props.store(out, "GitScribe clone cache");
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
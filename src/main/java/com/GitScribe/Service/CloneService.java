@@ -1,59 +1,688 @@
 package com.GitScribe.Service;
 
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Clone store: one local clone per normalized repository URL under a root directory,
+ * refreshed by fetching and kept within a disk budget.
+ *
+ * When the store exceeds its budget, the least recently used clones are evicted. A clone
+ * is pinned, and never evicted, while it is being cloned or fetched or while an analysis
+ * holds a {@link RepositorySession} on it. Forks of one upstream (repositories with the
+ * same root commit) share a bare object pool through git alternates: a fresh clone's
+ * objects are moved into its network's pool, which stores each object once, and the
+ * clone keeps none of its own.
+ */
 @Service
 public class CloneService {
 
+    /** Default disk budget of the clone store: 10 GiB. */
+    public static final long DEFAULT_MAX_BYTES = 10L * 1024 * 1024 * 1024;
+
+    private static final String POOLS_DIR = ".pools";
+    private static final String TRASH_PREFIX = ".trash-";
+
+    /** Root directory of the clone store; empty means {@code <java.io.tmpdir>/gitscribe-clones}. */
+    @Value("${gitscribe.clone.cache-dir:}")
+    private String cacheDir;
+
+    /** Disk budget of the clone store, object pools included. */
+    @Value("${gitscribe.clone.max-bytes:" + DEFAULT_MAX_BYTES + "}")
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    /** Whether forks of one upstream share objects through a pool. */
+    @Value("${gitscribe.clone.share-objects:true}")
+    private boolean shareObjects = true;
+
+    /**
+     * Default clone mode. Bare clones skip the checkout: every read is served from the
+     * object database and "latest content" comes from HEAD's tree.
+     */
+    @Value("${gitscribe.clone.bare:false}")
+    private boolean bareClones;
+
+    @Autowired
+    private RepositorySessionRegistry sessionRegistry;
+
+    /**
+     * One lock per store directory (clone or pool). Held while the directory is cloned or
+     * fetched, so concurrent requests for a repository clone or fetch it once, and tried
+     * by eviction, which skips directories that are busy.
+     */
+    private final ConcurrentHashMap<String, ReentrantLock> dirLocks = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+
+    private final AtomicLong clonesCreated = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+    private final AtomicLong pinnedSkips = new AtomicLong();
+
+    /**
+     * Returns the cached clone of repoUrl in the default clone mode, cloning it on first use.
+     *
+     * @param repoUrl the URL of the repository.
+     * @return the directory of the up-to-date local clone.
+     */
+    public File getOrCloneRepository(String repoUrl) throws GitAPIException, IOException {
+        return getOrCloneRepository(repoUrl, bareClones);
+    }
+
+    /**
+     * Returns the cached clone of repoUrl, cloning it on first use.
+     * An existing clone is refreshed with an incremental fetch and its current branch is
+     * moved to the fetched remote branch, so the working tree matches the remote HEAD;
+     * while an analysis holds a session on the clone that move waits for a later refresh.
+     * If the cached clone is unusable it is deleted and cloned again. Afterwards clones
+     * that are not in use are evicted until the store fits its disk budget.
+     *
+     * @param repoUrl the URL of the repository.
+     * @param bare    whether to use (or create) a bare clone without working tree.
+     * @return the directory of the up-to-date local clone.
+     */
+    public File getOrCloneRepository(String repoUrl, boolean bare) throws GitAPIException, IOException {
+        String key = normalizeRepoUrl(repoUrl);
+        File localDir = cacheDirFor(key, bare);
+        ReentrantLock lock = lockFor(localDir);
+        lock.lock();
+        try {
+            File gitDir = gitDirOf(localDir, bare);
+            CloneMetadata metadata = CloneMetadata.read(gitDir);
+            boolean refreshed = false;
+            if (metadata != null && key.equals(metadata.getRepoUrl())) {
+                try {
+                    fetchAndReset(repoUrl, key, localDir, metadata);
+                    refreshed = true;
+                    refreshes.incrementAndGet();
+                    System.out.println("CloneService: refreshed cached clone " + localDir + " @ " + metadata.getHead());
+                } catch (GitAPIException | IOException e) {
+                    System.out.println("CloneService: cached clone " + localDir + " unusable, recloning: " + e.getMessage());
+                }
+            }
+            if (!refreshed) {
+                metadata = cloneInto(repoUrl, key, localDir, bare);
+                clonesCreated.incrementAndGet();
+                System.out.println("CloneService: cloned " + key + " into " + localDir
+                        + (metadata.getPool() != null ? " sharing objects with " + metadata.getPool() : ""));
+            }
+            metadata.setLastUsed(System.currentTimeMillis());
+            metadata.setSizeBytes(sizeOf(localDir));
+            metadata.write(gitDir);
+        } finally {
+            lock.unlock();
+        }
+        if (sessionRegistry != null) {
+            // index the new commits while the caller gets on with its analysis
+            sessionRegistry.updateIndexInBackground(localDir.getPath());
+        }
+        enforceBudget(localDir);
+        return localDir;
+    }
+
+    /** Metadata of the cached clone of repoUrl in the given mode, or null if it has not been cloned. */
+    public CloneMetadata getCloneMetadata(String repoUrl, boolean bare) {
+        return CloneMetadata.read(gitDirOf(cacheDirFor(normalizeRepoUrl(repoUrl), bare), bare));
+    }
+
+    /** Current disk usage of the store and its clone/eviction counters. */
+    public CloneStoreStats getStoreStats() throws IOException {
+        CloneStoreStats stats = new CloneStoreStats();
+        long used = 0;
+        List<StoreEntry> clones = listClones();
+        for (StoreEntry clone : clones) {
+            used += clone.sizeBytes;
+        }
+        List<StoreEntry> pools = listPools();
+        for (StoreEntry pool : pools) {
+            used += pool.sizeBytes;
+        }
+        stats.setClones(clones.size());
+        stats.setPools(pools.size());
+        stats.setUsedBytes(used);
+        stats.setMaxBytes(maxBytes);
+        stats.setClonesCreated(clonesCreated.get());
+        stats.setRefreshes(refreshes.get());
+        stats.setEvictions(evictions.get());
+        stats.setEvictedBytes(evictedBytes.get());
+        stats.setPinnedSkips(pinnedSkips.get());
+        return stats;
+    }
+
+    /**
+     * Canonical form of a repository URL used as the cache key: trimmed, without
+     * trailing slashes or ".git", with scheme and host lower-cased, and with
+     * scp-like "git@host:owner/repo" rewritten to "ssh://git@host/owner/repo".
+     */
+    public static String normalizeRepoUrl(String repoUrl) {
+        String url = repoUrl.trim();
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        if (url.endsWith(".git")) {
+            url = url.substring(0, url.length() - 4);
+        }
+        int scheme = url.indexOf("://");
+        if (scheme < 0) {
+            int colon = url.indexOf(':');
+            int at = url.indexOf('@');
+            if (at >= 0 && colon > at) {
+                url = "ssh://" + url.substring(0, colon) + "/" + url.substring(colon + 1);
+                scheme = url.indexOf("://");
+            } else {
+                return url;
+            }
+        }
+        int hostStart = scheme + 3;
+        int hostEnd = url.indexOf('/', hostStart);
+        if (hostEnd < 0) {
+            hostEnd = url.length();
+        }
+        return url.substring(0, hostStart).toLowerCase(Locale.ROOT)
+                + url.substring(hostStart, hostEnd).toLowerCase(Locale.ROOT)
+                + url.substring(hostEnd);
+    }
+
+    /**
+     * Key of the fork network a repository belongs to: the root commit of HEAD's
+     * first-parent chain. Forks of one upstream share it whatever they are called, while
+     * unrelated repositories with the same name do not. Null for a repository without commits.
+     */
+    static String forkNetworkKey(Repository repo) throws IOException {
+        ObjectId head = repo.resolve(Constants.HEAD);
+        if (head == null) {
+            return null;
+        }
+        try (RevWalk walk = new RevWalk(repo)) {
+            walk.setRetainBody(false);
+            walk.setFirstParent(true);
+            walk.markStart(walk.parseCommit(head));
+            RevCommit root = null;
+            RevCommit commit;
+            while ((commit = walk.next()) != null) {
+                root = commit;
+            }
+            return root != null ? "root-" + root.getName() : null;
+        }
+    }
+
+    /** Clones repoUrl into localDir, then moves its objects to the fork network's pool when sharing is enabled. */
+    private CloneMetadata cloneInto(String repoUrl, String key, File localDir, boolean bare)
+            throws GitAPIException, IOException {
+        CloneMetadata metadata = new CloneMetadata();
+        metadata.setRepoUrl(key);
+        cloneDirect(repoUrl, localDir, bare);
+        if (shareObjects) {
+            moveObjectsToPool(key, localDir, bare, metadata);
+        }
+        metadata.setClonedAt(System.currentTimeMillis());
+        metadata.setLastFetch(metadata.getClonedAt());
+        try (Git git = Git.open(localDir)) {
+            metadata.setHead(headName(git.getRepository()));
+        }
+        return metadata;
+    }
+
+    /**
+     * Shares the objects of a fresh clone through the pool of its fork network: every ref
+     * of the clone is fetched into the pool (a local transfer of what the pool lacks), the
+     * pool is listed in the clone's alternates and the clone's own object files are
+     * deleted. The network is only known from the clone's history, so a fork is downloaded
+     * in full once. If any step before the deletion fails the clone is left unshared.
+     */
+    private void moveObjectsToPool(String key, File localDir, boolean bare, CloneMetadata metadata) throws IOException {
+        File gitDir = gitDirOf(localDir, bare);
+        String networkKey;
+        try (Git git = Git.open(localDir)) {
+            networkKey = forkNetworkKey(git.getRepository());
+        }
+        if (networkKey == null) {
+            return;
+        }
+        File poolDir = poolDirFor(networkKey);
+        ReentrantLock poolLock = lockFor(poolDir);
+        poolLock.lock();
+        try {
+            initPool(networkKey, poolDir);
+            fetchIntoPool(gitDir.getAbsolutePath(), new RefSpec("+refs/*:refs/clones/" + shortHash(key) + "/*"), poolDir);
+            File objects = new File(gitDir, Constants.OBJECTS);
+            File alternates = new File(objects, Constants.INFO_ALTERNATES);
+            alternates.getParentFile().mkdirs();
+            Files.write(alternates.toPath(),
+                    (new File(poolDir, Constants.OBJECTS).getAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+            deleteOwnObjects(objects);
+            metadata.setPool(poolDir.getAbsolutePath());
+            // recorded before the pool lock is released, so eviction sees the pool in use
+            metadata.write(gitDir);
+        } catch (GitAPIException | IOException e) {
+            System.out.println("CloneService: not sharing objects of " + localDir + " with " + poolDir + ": " + e.getMessage());
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /** Deletes the packs and loose objects of an object directory, keeping its info (and alternates). */
+    private void deleteOwnObjects(File objects) {
+        File[] children = objects.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.getName().equals("pack") || child.getName().matches("[0-9a-f]{2}")) {
+                    deleteDirectory(child);
+                }
+            }
+        }
+    }
+
+    private void fetchAndReset(String repoUrl, String key, File localDir, CloneMetadata metadata)
+            throws GitAPIException, IOException {
+        if (metadata.getPool() != null) {
+            File poolDir = new File(metadata.getPool());
+            ReentrantLock poolLock = lockFor(poolDir);
+            poolLock.lock();
+            try {
+                if (!new File(poolDir, Constants.OBJECTS).isDirectory()) {
+                    throw new IOException("object pool " + poolDir + " is missing");
+                }
+                // new objects land in the pool; the clone's own fetch then only updates its refs
+                fetchIntoPool(repoUrl.trim(), new RefSpec("+refs/heads/*:refs/remotes/" + shortHash(key) + "/*"), poolDir);
+            } finally {
+                poolLock.unlock();
+            }
+        }
+        try (Git git = Git.open(localDir)) {
+            git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+
+            Repository repo = git.getRepository();
+            String branch = repo.getBranch();
+            // a bare clone fetches straight into its branches and has no working tree to update
+            Ref remoteBranch = repo.isBare() ? null
+                    : repo.exactRef(Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch);
+            if (remoteBranch != null && !resetUnlessInUse(git, localDir, remoteBranch)) {
+                System.out.println("CloneService: " + localDir + " is being analyzed; its working tree stays at "
+                        + metadata.getHead() + " until the next refresh");
+            }
+            metadata.setHead(headName(repo));
+            metadata.setLastFetch(System.currentTimeMillis());
+            metadata.write(repo.getDirectory());
+        }
+    }
+
+    /**
+     * Hard-resets the working tree of the clone in localDir to remoteBranch unless an
+     * analysis holds a session on it: analyses read the working tree as the latest version
+     * of a file, which must not change under them. No session can be opened during the reset.
+     *
+     * @return false (without resetting) if the clone is in use; the next refresh retries.
+     */
+    private boolean resetUnlessInUse(Git git, File localDir, Ref remoteBranch) throws IOException {
+        RepositorySessionRegistry.UnusedAction reset = () -> {
+            try {
+                git.reset().setMode(ResetCommand.ResetType.HARD).setRef(remoteBranch.getName()).call();
+            } catch (GitAPIException e) {
+                throw new IOException("Cannot reset " + localDir + " to " + remoteBranch.getName(), e);
+            }
+        };
+        if (sessionRegistry == null) {
+            reset.run();
+            return true;
+        }
+        return sessionRegistry.runIfNotAnalyzed(localDir.getPath(), reset);
+    }
+
+    /** Creates the bare pool of a fork network unless it exists. */
+    private void initPool(String networkKey, File poolDir) throws GitAPIException, IOException {
+        if (!new File(poolDir, Constants.OBJECTS).isDirectory()) {
+            Git.init().setBare(true).setGitDir(poolDir).call().close();
+        }
+        if (CloneMetadata.read(poolDir) == null) {
+            CloneMetadata poolMetadata = new CloneMetadata();
+            poolMetadata.setRepoUrl("pool:" + networkKey);
+            poolMetadata.setClonedAt(System.currentTimeMillis());
+            poolMetadata.write(poolDir);
+        }
+    }
+
+    /** Fetches the refs spec selects from source into the bare pool, under a namespace of the clone's own. */
+    private void fetchIntoPool(String source, RefSpec spec, File poolDir) throws GitAPIException, IOException {
+        try (Git pool = Git.open(poolDir)) {
+            pool.fetch()
+                .setRemote(source)
+                .setRefSpecs(spec)
+                .setTagOpt(TagOpt.NO_TAGS)
+                .call();
+        }
+        CloneMetadata poolMetadata = CloneMetadata.read(poolDir);
+        if (poolMetadata == null) {
+            poolMetadata = new CloneMetadata();
+        }
+        poolMetadata.setLastFetch(System.currentTimeMillis());
+        poolMetadata.setLastUsed(poolMetadata.getLastFetch());
+        poolMetadata.setSizeBytes(sizeOf(poolDir));
+        poolMetadata.write(poolDir);
+    }
+
+    /**
+     * Evicts least recently used clones that are not pinned until the store fits its
+     * budget, then pools no remaining clone borrows from. keep is never evicted.
+     */
+    private void enforceBudget(File keep) throws IOException {
+        synchronized (evictionLock) {
+            deleteTrash();
+            List<StoreEntry> clones = listClones();
+            List<StoreEntry> pools = listPools();
+            long used = 0;
+            for (StoreEntry entry : clones) used += entry.sizeBytes;
+            for (StoreEntry entry : pools) used += entry.sizeBytes;
+            if (used <= maxBytes) {
+                return;
+            }
+
+            for (StoreEntry clone : clones) {
+                clone.lastUsed = Math.max(clone.lastUsed, sessionRegistry != null ? sessionRegistry.getLastUsed(clone.dir.getPath()) : 0L);
+            }
+            clones.sort(Comparator.comparingLong(e -> e.lastUsed));
+
+            List<StoreEntry> remaining = new ArrayList<>();
+            for (StoreEntry clone : clones) {
+                if (used <= maxBytes || clone.dir.equals(keep)) {
+                    remaining.add(clone);
+                    continue;
+                }
+                if (evict(clone)) {
+                    used -= clone.sizeBytes;
+                } else {
+                    remaining.add(clone);
+                }
+            }
+
+            if (used > maxBytes) {
+                Set<String> poolsInUse = new HashSet<>();
+                for (StoreEntry clone : remaining) {
+                    if (clone.metadata != null && clone.metadata.getPool() != null) {
+                        poolsInUse.add(clone.metadata.getPool());
+                    }
+                }
+                pools.sort(Comparator.comparingLong(e -> e.lastUsed));
+                for (StoreEntry pool : pools) {
+                    if (used <= maxBytes) {
+                        break;
+                    }
+                    if (!poolsInUse.contains(pool.dir.getAbsolutePath()) && evictPool(pool)) {
+                        used -= pool.sizeBytes;
+                    }
+                }
+            }
+            if (used > maxBytes) {
+                System.out.println("CloneService: store uses " + used + " bytes, over its budget of "
+                        + maxBytes + ", but the remaining clones are in use");
+            }
+        }
+    }
+
+    /** Removes an idle clone; returns false if it is being cloned, fetched or analyzed. */
+    private boolean evict(StoreEntry clone) throws IOException {
+        ReentrantLock lock = lockFor(clone.dir);
+        if (!lock.tryLock()) {
+            pinnedSkips.incrementAndGet();
+            return false;
+        }
+        try {
+            File trash = new File(clone.dir.getParentFile(), TRASH_PREFIX + clone.dir.getName() + "-" + System.nanoTime());
+            boolean moved = sessionRegistry == null
+                    ? clone.dir.renameTo(trash)
+                    : sessionRegistry.runIfUnused(clone.dir.getPath(), () -> Files.move(clone.dir.toPath(), trash.toPath()));
+            if (!moved) {
+                pinnedSkips.incrementAndGet();
+                return false;
+            }
+            deleteDirectory(trash);
+            evictions.incrementAndGet();
+            evictedBytes.addAndGet(clone.sizeBytes);
+            System.out.println("CloneService: evicted " + clone.dir + " (" + clone.sizeBytes + " bytes)");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes a pool unless a clone of its fork network is being created right now. */
+    private boolean evictPool(StoreEntry pool) {
+        ReentrantLock lock = lockFor(pool.dir);
+        if (!lock.tryLock()) {
+            pinnedSkips.incrementAndGet();
+            return false;
+        }
+        try {
+            // a clone created since the listing records its pool before releasing the pool lock
+            for (StoreEntry clone : listClones()) {
+                if (clone.metadata != null && pool.dir.getAbsolutePath().equals(clone.metadata.getPool())) {
+                    return false;
+                }
+            }
+            File trash = new File(pool.dir.getParentFile(), TRASH_PREFIX + pool.dir.getName() + "-" + System.nanoTime());
+            if (!pool.dir.renameTo(trash)) {
+                return false;
+            }
+            deleteDirectory(trash);
+            evictions.incrementAndGet();
+            evictedBytes.addAndGet(pool.sizeBytes);
+            System.out.println("CloneService: evicted unused object pool " + pool.dir + " (" + pool.sizeBytes + " bytes)");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** A clone or pool directory of the store with its metadata (null if it has none yet). */
+    private static final class StoreEntry {
+        final File dir;
+        final CloneMetadata metadata;
+        final long sizeBytes;
+        long lastUsed;
+
+        StoreEntry(File dir, CloneMetadata metadata, long sizeBytes, long lastUsed) {
+            this.dir = dir;
+            this.metadata = metadata;
+            this.sizeBytes = sizeBytes;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private List<StoreEntry> listClones() {
+        List<StoreEntry> clones = new ArrayList<>();
+        File[] dirs = storeRoot().listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                if (!dir.getName().startsWith(".")) {
+                    clones.add(entryFor(dir, RepositorySessionRegistry.resolveGitDir(dir)));
+                }
+            }
+        }
+        return clones;
+    }
+
+    private List<StoreEntry> listPools() {
+        List<StoreEntry> pools = new ArrayList<>();
+        File[] dirs = new File(storeRoot(), POOLS_DIR).listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                if (!dir.getName().startsWith(".")) {
+                    pools.add(entryFor(dir, dir));
+                }
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * Directories without metadata (a clone still in progress, or left behind by a crash)
+     * are measured on disk and aged by their modification time.
+     */
+    private StoreEntry entryFor(File dir, File gitDir) {
+        CloneMetadata metadata = CloneMetadata.read(gitDir);
+        if (metadata != null && metadata.getSizeBytes() > 0) {
+            return new StoreEntry(dir, metadata, metadata.getSizeBytes(), metadata.getLastUsed());
+        }
+        long size;
+        try {
+            size = sizeOf(dir);
+        } catch (IOException e) {
+            size = 0;
+        }
+        return new StoreEntry(dir, metadata, size, dir.lastModified());
+    }
+
+    /** Finishes deleting directories whose eviction was interrupted. */
+    private void deleteTrash() {
+        for (File root : new File[] { storeRoot(), new File(storeRoot(), POOLS_DIR) }) {
+            File[] trash = root.listFiles(f -> f.getName().startsWith(TRASH_PREFIX));
+            if (trash != null) {
+                for (File dir : trash) {
+                    deleteDirectory(dir);
+                }
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(File storeDir) {
+        return dirLocks.computeIfAbsent(storeDir.getAbsolutePath(), k -> new ReentrantLock());
+    }
+
+    /** Bytes of the files under dir; files removed while it is walked (gc locks, temporary packs) are skipped. */
+    private static long sizeOf(File dir) throws IOException {
+        if (!dir.exists()) {
+            return 0;
+        }
+        long[] size = { 0 };
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    size[0] += attrs.size();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+
+    private static String headName(Repository repo) throws IOException {
+        ObjectId head = repo.resolve(Constants.HEAD);
+        return head != null ? head.getName() : null;
+    }
+
+    private File storeRoot() {
+        return new File((cacheDir == null || cacheDir.trim().isEmpty())
+                ? System.getProperty("java.io.tmpdir") + File.separator + "gitscribe-clones"
+                : cacheDir.trim());
+    }
+
+    /**
+     * Cache directory of a normalized URL: the repository name plus a short hash of the URL,
+     * with a ".git" suffix for bare clones so both modes of one URL can coexist.
+     */
+    private File cacheDirFor(String normalizedUrl, boolean bare) {
+        return new File(storeRoot(), safeName(normalizedUrl.substring(normalizedUrl.lastIndexOf('/') + 1))
+                + "-" + shortHash(normalizedUrl) + (bare ? Constants.DOT_GIT_EXT : ""));
+    }
+
+    private static File gitDirOf(File localDir, boolean bare) {
+        return bare ? localDir : new File(localDir, Constants.DOT_GIT);
+    }
+
+    /** Bare object pool of a fork network. */
+    private File poolDirFor(String networkKey) {
+        return new File(new File(storeRoot(), POOLS_DIR), safeName(networkKey) + "-" + shortHash(networkKey) + ".git");
+    }
+
+    private static String safeName(String s) {
+        return s.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String shortHash(String s) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 6; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Clones the repository from repoUrl.
-     * If localDirPath is null or empty, generates a local directory name based on the repository name.
+     * If localDirPath is null or empty, the clone store's copy is returned instead
+     * (see {@link #getOrCloneRepository(String)}).
      *
      * @param repoUrl the URL of the repository to clone.
-     * @param localDirPath (optional) local directory to use; if null or empty, one is generated.
+     * @param localDirPath (optional) local directory to use; if null or empty, the clone store is used.
      * @return the File representing the cloned repository directory.
      * @throws GitAPIException if the cloning fails.
      */
-    public File cloneRepository(String repoUrl, String localDirPath) throws GitAPIException {
+    public File cloneRepository(String repoUrl, String localDirPath) throws GitAPIException, IOException {
         // Trim whitespace from repoUrl
         repoUrl = repoUrl.trim();
 
         if (localDirPath == null || localDirPath.trim().isEmpty()) {
-            localDirPath = generateLocalDirPath(repoUrl);
+            return getOrCloneRepository(repoUrl);
         }
         File localDir = new File(localDirPath);
+        cloneDirect(repoUrl, localDir, false);
+        return localDir;
+    }
+
+    /** Plain JGit clone into localDir, replacing whatever is there. */
+    private void cloneDirect(String repoUrl, File localDir, boolean bare) throws GitAPIException {
         if (localDir.exists()) {
             deleteDirectory(localDir);
         }
         localDir.mkdirs();
 
         Git.cloneRepository()
-            .setURI(repoUrl)
+            .setURI(repoUrl.trim())
             .setDirectory(localDir)
-            .call();
-
-        return localDir;
-    }
-
-    /**
-     * Generates a local directory path based on the repository name combined with the current timestamp.
-     *
-     * @param repoUrl the repository URL.
-     * @return a generated local directory path.
-     */
-    private String generateLocalDirPath(String repoUrl) {
-        String repoName = repoUrl.substring(repoUrl.lastIndexOf("/") + 1);
-        if (repoName.endsWith(".git")) {
-            repoName = repoName.substring(0, repoName.length() - 4);
-        }
-        // Use the current timestamp to ensure uniqueness.
-        String uniqueFolder = repoName + "_" + System.currentTimeMillis();
-        String tempDir = System.getProperty("java.io.tmpdir");
-        return tempDir + File.separator + uniqueFolder;
+            .setBare(bare)
+            .call()
+            .close();
     }
 
     /**
@@ -0,0 +1,42 @@
+package com.GitScribe.Service;
+
+/** Disk usage and counters of the clone store managed by {@link CloneService}. */
+public class CloneStoreStats {
+    private int clones;
+    private int pools;
+    private long usedBytes;
+    private long maxBytes;
+    private long clonesCreated;
+    private long refreshes;
+    private long evictions;
+    private long evictedBytes;
+    private long pinnedSkips;
+
+    public int getClones() { return clones; }
+    public void setClones(int clones) { this.clones = clones; }
+
+    public int getPools() { return pools; }
+    public void setPools(int pools) { this.pools = pools; }
+
+    public long getUsedBytes() { return usedBytes; }
+    public void setUsedBytes(long usedBytes) { this.usedBytes = usedBytes; }
+
+    public long getMaxBytes() { return maxBytes; }
+    public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+
+    public long getClonesCreated() { return clonesCreated; }
+    public void setClonesCreated(long clonesCreated) { this.clonesCreated = clonesCreated; }
+
+    public long getRefreshes() { return refreshes; }
+    public void setRefreshes(long refreshes) { this.refreshes = refreshes; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    public long getEvictedBytes() { return evictedBytes; }
+    public void setEvictedBytes(long evictedBytes) { this.evictedBytes = evictedBytes; }
+
+    /** Eviction candidates skipped because an analysis or clone was using them. */
+    public long getPinnedSkips() { return pinnedSkips; }
+    public void setPinnedSkips(long pinnedSkips) { this.pinnedSkips = pinnedSkips; }
+}
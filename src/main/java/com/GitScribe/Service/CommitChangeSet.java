@@ -0,0 +1,47 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable set of file changes between two commits, with rename detection applied.
+ * Computed once per commit pair and shared through {@link ChangeSetCache}.
+ */
+public class CommitChangeSet {
+    private final ObjectId oldCommitId;
+    private final ObjectId newCommitId;
+    private final List<FileChange> changes;
+
+    public CommitChangeSet(ObjectId oldCommitId, ObjectId newCommitId, List<FileChange> changes) {
+        this.oldCommitId = oldCommitId;
+        this.newCommitId = newCommitId;
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    public ObjectId getOldCommitId() { return oldCommitId; }
+    public ObjectId getNewCommitId() { return newCommitId; }
+    public List<FileChange> getChanges() { return changes; }
+
+    public List<FileChange> getChanges(DiffEntry.ChangeType type) {
+        List<FileChange> result = new ArrayList<>();
+        for (FileChange c : changes) {
+            if (c.getChangeType() == type) {
+                result.add(c);
+            }
+        }
+        return result;
+    }
+
+    /** New-side path of every change ({@link DiffEntry#DEV_NULL} for deletions). */
+    public List<String> getNewPaths() {
+        List<String> paths = new ArrayList<>(changes.size());
+        for (FileChange c : changes) {
+            paths.add(c.getNewPath());
+        }
+        return paths;
+    }
+}
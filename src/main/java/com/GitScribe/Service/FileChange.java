@@ -0,0 +1,46 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * One entry of a {@link CommitChangeSet}: an added, modified, deleted, renamed or
+ * copied path with its old/new blob ids and, for renames/copies, the similarity score.
+ * Absent sides use {@link DiffEntry#DEV_NULL} as path and {@link ObjectId#zeroId()} as id.
+ */
+public class FileChange {
+    private final DiffEntry.ChangeType changeType;
+    private final String oldPath;
+    private final String newPath;
+    private final ObjectId oldId;
+    private final ObjectId newId;
+    private final int score;
+
+    public FileChange(DiffEntry.ChangeType changeType, String oldPath, String newPath,
+                      ObjectId oldId, ObjectId newId, int score) {
+        this.changeType = changeType;
+        this.oldPath = oldPath;
+        this.newPath = newPath;
+        this.oldId = oldId;
+        this.newId = newId;
+        this.score = score;
+    }
+
+    static FileChange of(DiffEntry entry) {
+        return new FileChange(entry.getChangeType(), entry.getOldPath(), entry.getNewPath(),
+                entry.getOldId().toObjectId(), entry.getNewId().toObjectId(), entry.getScore());
+    }
+
+    public DiffEntry.ChangeType getChangeType() { return changeType; }
+    public String getOldPath() { return oldPath; }
+    public String getNewPath() { return newPath; }
+    public ObjectId getOldId() { return oldId; }
+    public ObjectId getNewId() { return newId; }
+    /** Similarity (0-100) for renames and copies, 0 otherwise. */
+    public int getScore() { return score; }
+
+    /** True if the file exists after the change (everything except deletions). */
+    public boolean hasNewSide() {
+        return changeType != DiffEntry.ChangeType.DELETE;
+    }
+}
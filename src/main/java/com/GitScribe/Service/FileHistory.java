@@ -0,0 +1,70 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a file history walk: the commits that touched a file, oldest first,
+ * together with the path the file had at each of those commits (renames change it).
+ */
+public class FileHistory {
+    private final List<RevCommit> commits;
+    private final List<String> paths;
+    /** Commit id to index, built on the first {@link #indexOf} call. */
+    private volatile Map<ObjectId, Integer> indices;
+
+    public FileHistory(List<RevCommit> commits, List<String> paths) {
+        if (commits.size() != paths.size()) {
+            throw new IllegalArgumentException("commits and paths must have the same size");
+        }
+        this.commits = Collections.unmodifiableList(commits);
+        this.paths = Collections.unmodifiableList(paths);
+    }
+
+    public List<RevCommit> getCommits() {
+        return commits;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public int size() {
+        return commits.size();
+    }
+
+    public RevCommit getCommit(int index) {
+        return commits.get(index);
+    }
+
+    /** Path of the tracked file at the commit with the given index. */
+    public String getPath(int index) {
+        return paths.get(index);
+    }
+
+    /** Path of the tracked file at the given commit, or null if the commit is not part of this history. */
+    public String getPath(AnyObjectId commitId) {
+        int i = indexOf(commitId);
+        return i >= 0 ? paths.get(i) : null;
+    }
+
+    /** Index of the given commit in this history, or -1 if it is not part of it. */
+    public int indexOf(AnyObjectId commitId) {
+        Map<ObjectId, Integer> map = indices;
+        if (map == null) {
+            map = new HashMap<>(commits.size() * 2);
+            for (int i = 0; i < commits.size(); i++) {
+                map.put(commits.get(i).copy(), i);
+            }
+            indices = map;
+        }
+        Integer i = map.get(commitId);
+        return i != null ? i : -1;
+    }
+}
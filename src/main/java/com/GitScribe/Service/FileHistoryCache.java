@@ -0,0 +1,142 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Cache of {@link FileHistory}s keyed by (start commit, path), bounded by the number
+ * of commits held, with LRU eviction. A commit id fixes its whole ancestry, so entries
+ * are valid for any repository and are shared by every request.
+ *
+ * A history is walked exactly once: concurrent callers asking for one that is still
+ * being walked wait for that walk instead of starting their own.
+ */
+public class FileHistoryCache {
+
+    /** Default number of history commits kept over all entries. */
+    public static final long DEFAULT_MAX_COMMITS = 200_000;
+
+    /** Walks a history on a cache miss. */
+    public interface Loader {
+        FileHistory load() throws IOException;
+    }
+
+    private final long maxCommits;
+    private final LinkedHashMap<Key, CompletableFuture<FileHistory>> entries =
+            new LinkedHashMap<>(64, 0.75f, true);
+    private long currentCommits;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public FileHistoryCache() {
+        this(DEFAULT_MAX_COMMITS);
+    }
+
+    public FileHistoryCache(long maxCommits) {
+        this.maxCommits = maxCommits;
+    }
+
+    public FileHistory get(AnyObjectId start, String path, Loader loader) throws IOException {
+        Key key = new Key(start.copy(), path);
+        CompletableFuture<FileHistory> future;
+        boolean owner = false;
+        synchronized (entries) {
+            future = entries.get(key);
+            if (future == null) {
+                misses++;
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                owner = true;
+            } else {
+                hits++;
+            }
+        }
+
+        if (owner) {
+            try {
+                FileHistory history = loader.load();
+                synchronized (entries) {
+                    if (entries.get(key) == future) {
+                        currentCommits += history.size();
+                        evict(key);
+                    }
+                }
+                future.complete(history);
+            } catch (IOException | RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(key, future);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Drops least recently used walked histories, other than keep's, until the budget holds. */
+    private void evict(Key keep) {
+        Iterator<Map.Entry<Key, CompletableFuture<FileHistory>>> it = entries.entrySet().iterator();
+        while (currentCommits > maxCommits && it.hasNext()) {
+            Map.Entry<Key, CompletableFuture<FileHistory>> entry = it.next();
+            CompletableFuture<FileHistory> future = entry.getValue();
+            if (entry.getKey().equals(keep) || !future.isDone()) {
+                continue;
+            }
+            currentCommits -= future.join().size();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public FileHistoryCacheStats getStats() {
+        FileHistoryCacheStats stats = new FileHistoryCacheStats();
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+            stats.setCommits(currentCommits);
+            stats.setMaxCommits(maxCommits);
+            stats.setHits(hits);
+            stats.setMisses(misses);
+            stats.setEvictions(evictions);
+        }
+        return stats;
+    }
+
+    private static final class Key {
+        final ObjectId start;
+        final String path;
+
+        Key(ObjectId start, String path) {
+            this.start = start;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return start.equals(other.start) && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * start.hashCode() + path.hashCode();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.GitScribe.Service;
+
+/** Counters reported by {@link FileHistoryCache}. */
+public class FileHistoryCacheStats {
+    private int entries;
+    private long commits;
+    private long maxCommits;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public int getEntries() { return entries; }
+    public void setEntries(int entries) { this.entries = entries; }
+
+    public long getCommits() { return commits; }
+    public void setCommits(long commits) { this.commits = commits; }
+
+    public long getMaxCommits() { return maxCommits; }
+    public void setMaxCommits(long maxCommits) { this.maxCommits = maxCommits; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+}
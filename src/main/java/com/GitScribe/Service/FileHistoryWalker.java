@@ -0,0 +1,326 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Single-pass history engine for one file.
+ *
+ * Walks the first-parent chain from a start commit with one {@link RevWalk},
+ * one {@link ObjectReader}, one {@link TreeWalk} and one {@link DiffFormatter}.
+ * For each commit only the tracked path is compared against the first parent;
+ * identical subtrees are skipped by id, and full rename detection runs only on
+ * commits where the tracked path does not exist in the parent.
+ *
+ * A commit is recorded when the tracked path was modified, or when it was
+ * created by a rename/copy (the path then follows the rename backwards).
+ * Commits that merely add or delete the path are not recorded.
+ *
+ * When a {@link ChangedPathIndex} is available, commits whose Bloom filter says
+ * the tracked path certainly did not change are skipped without any tree access.
+ * For deep histories {@link #walkSegmented} scans parts of the chain in parallel.
+ */
+public class FileHistoryWalker {
+
+    private static final int UNCHANGED = 0;
+    private static final int MODIFIED = 1;
+    private static final int ADDED = 2;
+    private static final int DELETED = 3;
+
+    private final Repository repo;
+    private final ChangedPathIndex index;
+
+    public FileHistoryWalker(Repository repo) {
+        this(repo, null);
+    }
+
+    public FileHistoryWalker(Repository repo, ChangedPathIndex index) {
+        this.repo = repo;
+        this.index = index;
+    }
+
+    /** Walks the history of filePath starting at HEAD. */
+    public FileHistory walk(String filePath) throws IOException {
+        ObjectId headId = repo.resolve(Constants.HEAD);
+        if (headId == null) {
+            return new FileHistory(new ArrayList<>(), new ArrayList<>());
+        }
+        return walk(filePath, headId);
+    }
+
+    /** Walks the history of filePath starting at the given commit. */
+    public FileHistory walk(String filePath, AnyObjectId start) throws IOException {
+        List<RevCommit> commits = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+
+        try (Scanner scanner = new Scanner()) {
+            RevWalk revWalk = scanner.revWalk;
+            revWalk.setFirstParent(true);
+            revWalk.markStart(revWalk.parseCommit(start));
+
+            String currentPath = filePath;
+            RevCommit commit;
+            while ((commit = revWalk.next()) != null) {
+                if (commit.getParentCount() == 0) {
+                    break;
+                }
+                currentPath = scanner.step(commit, currentPath, commits, paths);
+            }
+            scanner.parseBodies(commits);
+        }
+
+        Collections.reverse(commits);
+        Collections.reverse(paths);
+        return new FileHistory(commits, paths);
+    }
+
+    /**
+     * Same result as {@link #walk(String)}, but the first-parent chain is split into
+     * up to segmentCount segments that are scanned concurrently on executor.
+     *
+     * The only state carried from one commit to the next is the tracked path, so each
+     * segment is scanned speculatively with the path it is expected to start with, and
+     * the segments are then stitched newest to oldest. When a rename in a newer segment
+     * changes the path entering a segment, that segment (and every older one scanned
+     * with the same stale path) is re-scanned with the re-resolved path.
+     */
+    public FileHistory walkSegmented(String filePath, ExecutorService executor, int segmentCount,
+                                     int minSegmentCommits) throws IOException {
+        ObjectId headId = repo.resolve(Constants.HEAD);
+        if (headId == null) {
+            return new FileHistory(new ArrayList<>(), new ArrayList<>());
+        }
+        return walkSegmented(filePath, headId, executor, segmentCount, minSegmentCommits);
+    }
+
+    /** Same as {@link #walkSegmented(String, ExecutorService, int, int)} from the given commit. */
+    public FileHistory walkSegmented(String filePath, AnyObjectId start, ExecutorService executor, int segmentCount,
+                                     int minSegmentCommits) throws IOException {
+        List<ObjectId> chain = firstParentChain(start);
+        int segments = Math.min(segmentCount, chain.size() / Math.max(1, minSegmentCommits));
+        if (segments <= 1) {
+            return walk(filePath, start);
+        }
+
+        int[] bounds = new int[segments + 1];
+        for (int k = 0; k <= segments; k++) {
+            bounds[k] = (int) ((long) chain.size() * k / segments);
+        }
+        Segment[] scans = new Segment[segments];
+        List<Future<Segment>> futures = new ArrayList<>();
+        for (int k = 0; k < segments; k++) {
+            scans[k] = new Segment(filePath);
+            futures.add(submit(executor, chain, bounds[k], bounds[k + 1], scans[k]));
+        }
+
+        List<RevCommit> commits = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        String currentPath = filePath;
+        try {
+            for (int k = 0; k < segments; k++) {
+                String stalePath = scans[k].entryPath;
+                if (!stalePath.equals(currentPath)) {
+                    // a rename in a newer segment: re-scan the older segments that assumed the old path
+                    for (int j = k; j < segments; j++) {
+                        if (scans[j].entryPath.equals(stalePath)) {
+                            abandon(scans[j], futures.get(j));
+                            scans[j] = new Segment(currentPath);
+                            futures.set(j, submit(executor, chain, bounds[j], bounds[j + 1], scans[j]));
+                        }
+                    }
+                }
+                Segment segment = futures.get(k).get();
+                commits.addAll(segment.commits);
+                paths.addAll(segment.paths);
+                currentPath = segment.exitPath;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning history of " + filePath, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("History scan of " + filePath + " failed", cause);
+        } finally {
+            for (int k = 0; k < segments; k++) {
+                abandon(scans[k], futures.get(k));
+            }
+        }
+
+        Collections.reverse(commits);
+        Collections.reverse(paths);
+        return new FileHistory(commits, paths);
+    }
+
+    /** HEAD's first-parent chain, newest first, read from commit headers only. */
+    private List<ObjectId> firstParentChain(AnyObjectId start) throws IOException {
+        List<ObjectId> chain = new ArrayList<>();
+        try (RevWalk revWalk = new RevWalk(repo)) {
+            revWalk.setRetainBody(false);
+            revWalk.setFirstParent(true);
+            revWalk.markStart(revWalk.parseCommit(start));
+            RevCommit commit;
+            while ((commit = revWalk.next()) != null) {
+                chain.add(commit.copy());
+            }
+        }
+        return chain;
+    }
+
+    private Future<Segment> submit(ExecutorService executor, List<ObjectId> chain, int from, int to, Segment segment) {
+        return executor.submit(() -> scanSegment(chain, from, to, segment));
+    }
+
+    /**
+     * Stops a scan that is no longer needed. Workers are not interrupted: an interrupt
+     * during a pack read would close the pack file channel shared with other readers.
+     */
+    private static void abandon(Segment segment, Future<Segment> future) {
+        segment.abandoned = true;
+        future.cancel(false);
+    }
+
+    /** Scans chain[from, to) (newest first) from the segment's entry path, on the calling thread. */
+    private Segment scanSegment(List<ObjectId> chain, int from, int to, Segment segment) throws IOException {
+        try (Scanner scanner = new Scanner()) {
+            String currentPath = segment.entryPath;
+            for (int i = from; i < to && !segment.abandoned; i++) {
+                RevCommit commit = scanner.revWalk.parseCommit(chain.get(i));
+                if (commit.getParentCount() == 0) {
+                    break;
+                }
+                currentPath = scanner.step(commit, currentPath, segment.commits, segment.paths);
+            }
+            scanner.parseBodies(segment.commits);
+            segment.exitPath = currentPath;
+        }
+        return segment;
+    }
+
+    /** Scan of one segment: the path it starts with, the commits recorded (newest first) and the path it ends with. */
+    private static final class Segment {
+        final String entryPath;
+        final List<RevCommit> commits = new ArrayList<>();
+        final List<String> paths = new ArrayList<>();
+        String exitPath;
+        volatile boolean abandoned;
+
+        Segment(String entryPath) {
+            this.entryPath = entryPath;
+        }
+    }
+
+    /** Reader, walks and diff formatter used by one thread to scan commits. */
+    private final class Scanner implements AutoCloseable {
+        final ObjectReader reader = repo.newObjectReader();
+        final RevWalk revWalk = new RevWalk(reader);
+        final TreeWalk treeWalk = new TreeWalk(repo, reader);
+        final DiffFormatter renameFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+
+        Scanner() {
+            // bodies (author, message) are only loaded for commits that end up in the history
+            revWalk.setRetainBody(false);
+            treeWalk.setRecursive(true);
+            renameFormatter.setReader(reader, repo.getConfig());
+            renameFormatter.setDetectRenames(true);
+        }
+
+        /** Compares commit with its first parent, records it if needed and returns the path to track next. */
+        String step(RevCommit commit, String currentPath, List<RevCommit> commits, List<String> paths) throws IOException {
+            Boolean mightHaveChanged = (index != null) ? index.mightHaveChanged(commit, currentPath) : null;
+            if (Boolean.FALSE.equals(mightHaveChanged)) {
+                return currentPath;
+            }
+            RevCommit parent = commit.getParent(0);
+            revWalk.parseHeaders(parent);
+
+            int change = comparePath(treeWalk, currentPath, parent, commit);
+            if (change == UNCHANGED && mightHaveChanged != null) {
+                index.recordFalsePositive(commit);
+            }
+            if (change == MODIFIED) {
+                commits.add(commit);
+                paths.add(currentPath);
+            } else if (change == ADDED) {
+                // the path appears in this commit: only here is rename detection needed
+                String sourcePath = findRenameSource(renameFormatter, currentPath, parent, commit);
+                if (sourcePath != null) {
+                    commits.add(commit);
+                    paths.add(currentPath);
+                    return sourcePath;
+                }
+            }
+            return currentPath;
+        }
+
+        void parseBodies(List<RevCommit> commits) throws IOException {
+            for (RevCommit c : commits) {
+                revWalk.parseBody(c);
+            }
+        }
+
+        @Override
+        public void close() {
+            renameFormatter.close();
+            treeWalk.close();
+            revWalk.close();
+            reader.close();
+        }
+    }
+
+    /** Compares the entry at path between the parent and the commit, descending only into differing subtrees. */
+    private static int comparePath(TreeWalk treeWalk, String path, RevCommit parent, RevCommit commit) throws IOException {
+        treeWalk.setFilter(AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+        treeWalk.reset(parent.getTree(), commit.getTree());
+        while (treeWalk.next()) {
+            if (!treeWalk.getPathString().equals(path)) {
+                continue;
+            }
+            int oldMode = treeWalk.getRawMode(0);
+            int newMode = treeWalk.getRawMode(1);
+            if (oldMode == FileMode.TYPE_MISSING) {
+                return ADDED;
+            }
+            if (newMode == FileMode.TYPE_MISSING) {
+                return DELETED;
+            }
+            return MODIFIED;
+        }
+        return UNCHANGED;
+    }
+
+    /** Runs rename detection on parent → commit and returns the old path renamed/copied to path, or null. */
+    private static String findRenameSource(DiffFormatter df, String path, RevCommit parent, RevCommit commit) throws IOException {
+        for (DiffEntry d : df.scan(parent.getTree(), commit.getTree())) {
+            boolean renamed = d.getChangeType() == DiffEntry.ChangeType.RENAME
+                           || d.getChangeType() == DiffEntry.ChangeType.COPY;
+            if (renamed && d.getNewPath().equals(path)) {
+                return d.getOldPath();
+            }
+        }
+        return null;
+    }
+}
@@ -1,29 +1,60 @@
 package com.GitScribe.Service;
 
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class FileTreeService {
 
+    @Autowired
+    private RepositorySessionRegistry sessionRegistry;
+
     /**
      * Lists all files in the repository directory recursively.
      * The returned file paths are relative to the repository root.
+     * A bare clone has no files on disk, so its files are listed from HEAD's tree.
      *
      * @param repoDirPath the local repository directory.
      * @return a List of relative file paths.
      */
-    public List<String> listFiles(String repoDirPath) {
+    public List<String> listFiles(String repoDirPath) throws IOException {
         List<String> filePaths = new ArrayList<>();
         File root = new File(repoDirPath);
         if (root.exists() && root.isDirectory()) {
-            listFilesRecursive(root, "", filePaths);
+            if (RepositorySessionRegistry.resolveGitDir(root).equals(root)) {
+                listHeadFiles(repoDirPath, filePaths);
+            } else {
+                listFilesRecursive(root, "", filePaths);
+            }
         }
         return filePaths;
     }
 
+    private void listHeadFiles(String repoDirPath, List<String> filePaths) throws IOException {
+        try (RepositorySession session = sessionRegistry.acquire(repoDirPath)) {
+            ObjectId head = session.getRepository().resolve(Constants.HEAD);
+            if (head == null) {
+                return;
+            }
+            try (RevWalk revWalk = new RevWalk(session.getObjectReader());
+                 TreeWalk treeWalk = new TreeWalk(session.getObjectReader())) {
+                treeWalk.addTree(revWalk.parseCommit(head).getTree());
+                treeWalk.setRecursive(true);
+                while (treeWalk.next()) {
+                    filePaths.add(treeWalk.getPathString());
+                }
+            }
+        }
+    }
+
     private void listFilesRecursive(File dir, String relativePath, List<String> filePaths) {
         for (File file : dir.listFiles()) {
             if (file.isDirectory()) {
@@ -0,0 +1,107 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.AnyObjectId;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One version of an analysed file: its full text, a lexical scan of it when it is over
+ * the parse limit, or nothing when oversized versions are skipped. The methods of a
+ * full text are looked up once and then shared by every method history of the request,
+ * as is the line diff between two consecutive full texts.
+ */
+class FileVersion {
+    /** The file does not exist in this version. */
+    static final FileVersion ABSENT = new FileVersion("", null, null);
+    /** The version was oversized and skipped. */
+    static final FileVersion SKIPPED = new FileVersion(null, null, null);
+
+    private final String content;
+    private final AnyObjectId blobId;
+    private final ScannedSource scanned;
+    /** Methods of the full text by name, built on first lookup. */
+    private Map<String, List<MethodDeclarationData>> methodsByName;
+    /** Content as diff input, built on first diff. */
+    private RawText rawText;
+    /** The version {@link #editsFrom} last diffed against, and the result. */
+    private FileVersion diffedFrom;
+    private EditList edits;
+
+    private FileVersion(String content, AnyObjectId blobId, ScannedSource scanned) {
+        this.content = content;
+        this.blobId = blobId;
+        this.scanned = scanned;
+    }
+
+    /** Full text of the blob blobId. */
+    static FileVersion of(String content, AnyObjectId blobId) {
+        return new FileVersion(content, blobId.copy(), null);
+    }
+
+    static FileVersion scanned(ScannedSource scanned) {
+        return new FileVersion(null, null, scanned);
+    }
+
+    boolean isSkipped() {
+        return content == null && scanned == null;
+    }
+
+    /** True if the full text is loaded (not scanned or skipped); an absent file has empty text. */
+    boolean hasText() {
+        return content != null;
+    }
+
+    /**
+     * Line edits that turn older into this version (histogram diff, lines split at '\n'),
+     * computed once for the pair. Both versions must have text.
+     */
+    EditList editsFrom(FileVersion older) {
+        if (diffedFrom != older) {
+            edits = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM)
+                    .diff(RawTextComparator.DEFAULT, older.rawText(), rawText());
+            diffedFrom = older;
+        }
+        return edits;
+    }
+
+    /** True if lines [begin, end) of the text, 0-based, contain s. */
+    boolean linesContain(int begin, int end, String s) {
+        return begin < end && rawText().getString(begin, end, false).contains(s);
+    }
+
+    private RawText rawText() {
+        if (rawText == null) {
+            rawText = new RawText(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return rawText;
+    }
+
+    /** Declarations of the methods called name, in source order. */
+    List<MethodDeclarationData> getMethodsNamed(String name) {
+        if (scanned != null) {
+            return scanned.getMethodsNamed(name);
+        }
+        if (content == null) {
+            return Collections.emptyList();
+        }
+        if (methodsByName == null) {
+            methodsByName = new HashMap<>();
+            List<MethodDeclarationData> methods = blobId != null
+                    ? JDTParser.getMethods(content, blobId) : JDTParser.getMethods(content);
+            for (MethodDeclarationData md : methods) {
+                methodsByName.computeIfAbsent(md.getName(), k -> new ArrayList<>(1)).add(md);
+            }
+        }
+        return methodsByName.getOrDefault(name, Collections.emptyList());
+    }
+}
@@ -1,150 +1,360 @@
 package com.GitScribe.Service;
 
-import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
-import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.ObjectStream;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Git reads used by the analyses. Holds no per-repository state: every call names the
+ * {@link RepositorySession} it reads from, so concurrent requests on different
+ * repositories cannot interfere.
+ */
 @Service
 public class GitHubService {
 
-    private String localRepoPath;
-    private Git git;
+    /** Decoded blob contents and (commit, path) → blob ids, shared across requests and repositories. */
+    private static final BlobCache BLOB_CACHE = new BlobCache();
+    /** Change sets per commit pair, shared across requests and repositories. */
+    private static final ChangeSetCache CHANGE_SET_CACHE = new ChangeSetCache();
+    /** File histories per (HEAD, path), shared across requests and repositories. */
+    private static final FileHistoryCache FILE_HISTORY_CACHE = new FileHistoryCache();
 
-    /** (Re)initializes the local repo every time you set a new path. */
-    public void setLocalRepoPath(String repoDirPath) throws IOException {
-        this.localRepoPath = repoDirPath;
-        File gitDir = new File(repoDirPath, ".git");
-        Repository repo = new FileRepositoryBuilder()
-                .setGitDir(gitDir)
-                .readEnvironment()
-                .findGitDir()
-                .build();
-        // close old one if present
-        if (this.git != null) {
-            this.git.getRepository().close();
-        }
-        this.git = new Git(repo);
+    /** Default size above which a file version is not loaded whole and parsed. */
+    public static final long DEFAULT_MAX_PARSE_BYTES = 2L * 1024 * 1024;
+
+    /** Versions above this size are reported as {@link OversizedBlobException} instead of being loaded. */
+    @Value("${gitscribe.blob.max-parse-bytes:" + DEFAULT_MAX_PARSE_BYTES + "}")
+    private long maxParseBytes = DEFAULT_MAX_PARSE_BYTES;
+
+    /**
+     * What to do with file versions over the parse limit: "scan" extracts their methods
+     * with a streaming lexical scan, "skip" leaves them out of the analysis.
+     */
+    @Value("${gitscribe.blob.oversize-mode:scan}")
+    private String oversizeMode = "scan";
+
+    /** Default minimum number of first-parent commits per history segment. */
+    public static final int DEFAULT_MIN_SEGMENT_COMMITS = 1000;
+
+    /** Threads scanning segments of a deep first-parent chain in parallel; 0 or 1 walks it sequentially. */
+    @Value("${gitscribe.history.segment-threads:0}")
+    private int historySegmentThreads = 0;
+
+    /** Chains shorter than two segments of this many commits are walked sequentially. */
+    @Value("${gitscribe.history.min-segment-commits:" + DEFAULT_MIN_SEGMENT_COMMITS + "}")
+    private int minSegmentCommits = DEFAULT_MIN_SEGMENT_COMMITS;
+
+    /** Worker pool for segmented history scans, created on first use. */
+    private ExecutorService historyExecutor;
+
+    /** Threads parsing the distinct versions of a file in parallel; 0 or 1 parses each on first use. */
+    @Value("${gitscribe.parser.threads:0}")
+    private int parseThreads = 0;
+
+    /** Worker pool for batch parsing, created on first use. */
+    private ExecutorService parseExecutor;
+
+    public long getMaxParseBytes() {
+        return maxParseBytes;
+    }
+
+    /** True if oversized versions are scanned lexically, false if they are skipped. */
+    public boolean isScanOversized() {
+        return !"skip".equalsIgnoreCase(oversizeMode);
     }
 
-    /** Read the working‐tree version of a file. */
-    public String getFileContent(String filePath) throws IOException {
-        Path full = Path.of(localRepoPath, filePath);
+    /**
+     * Read the latest version of a file: the working-tree version, or HEAD's version
+     * for a bare clone, which has no working tree. Throws {@link OversizedBlobException}
+     * for files over the parse limit (see {@link #scanFileContent}).
+     */
+    public String getFileContent(RepositorySession session, String filePath) throws IOException {
+        if (session.isBare()) {
+            ObjectId head = session.getRepository().resolve(Constants.HEAD);
+            if (head == null) {
+                throw new IOException("Repository has no HEAD: " + session.getRepoDirPath());
+            }
+            return getFileContentAtCommit(session, filePath, head.getName());
+        }
+        Path full = Path.of(session.getRepoDirPath(), filePath);
+        long size = Files.size(full);
+        if (size > maxParseBytes) {
+            throw new OversizedBlobException(filePath, size, maxParseBytes);
+        }
         return Files.readString(full, StandardCharsets.UTF_8);
     }
 
+    /** Lexical method scan of the latest version of a file, streamed from disk or from HEAD. */
+    public ScannedSource scanFileContent(RepositorySession session, String filePath) throws IOException {
+        if (session.isBare()) {
+            ObjectId head = session.getRepository().resolve(Constants.HEAD);
+            if (head == null) {
+                throw new IOException("Repository has no HEAD: " + session.getRepoDirPath());
+            }
+            try (RevWalk rw = new RevWalk(session.getObjectReader());
+                 TreeWalk treeWalk = TreeWalk.forPath(session.getObjectReader(), filePath, rw.parseCommit(head).getTree())) {
+                if (treeWalk == null) {
+                    return new ScannedSource(new ArrayList<>());
+                }
+                return scanBlob(session, treeWalk.getObjectId(0));
+            }
+        }
+        try (Reader reader = Files.newBufferedReader(Path.of(session.getRepoDirPath(), filePath), StandardCharsets.UTF_8)) {
+            return LexicalMethodScanner.scan(reader);
+        }
+    }
+
     /**
      * Walks back from HEAD → oldest, but only records commits
      * where `filePath` was modified/renamed/copied.
      */
-    public List<RevCommit> getCommitHistory(String filePath) throws IOException, GitAPIException {
-        Repository repo = git.getRepository();
-        RevWalk revWalk = new RevWalk(repo);
-        List<RevCommit> history = new ArrayList<>();
-
-        // start at HEAD
-        ObjectId headId = repo.resolve(Constants.HEAD);
-        RevCommit commit = revWalk.parseCommit(headId);
-        String currentPath = filePath;
-
-        while (commit != null) {
-            // parse parent fully
-            RevCommit parent = (commit.getParentCount() > 0)
-                    ? revWalk.parseCommit(commit.getParent(0).getId())
-                    : null;
-            if (parent == null) break;
-
-            // diff parent → commit
-            try (DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
-                df.setRepository(repo);
-                df.setDetectRenames(true);
-                List<DiffEntry> diffs = df.scan(parent.getTree(), commit.getTree());
-                for (DiffEntry d : diffs) {
-                    boolean touches = (d.getChangeType() == DiffEntry.ChangeType.MODIFY
-                                   || d.getChangeType() == DiffEntry.ChangeType.RENAME
-                                   || d.getChangeType() == DiffEntry.ChangeType.COPY)
-                                   && d.getNewPath().equals(currentPath);
-                    if (touches) {
-                        history.add(commit);
-                        // follow renames backwards
-                        currentPath = d.getOldPath();
-                        break;
-                    }
-                }
+    public List<RevCommit> getCommitHistory(RepositorySession session, String filePath) throws IOException, GitAPIException {
+        return getFileHistory(session, filePath).getCommits();
+    }
+
+    /**
+     * Same walk as {@link #getCommitHistory(RepositorySession, String)}, but also returns the path
+     * the file had at each recorded commit so renames can be followed. The walk is done once
+     * per (HEAD, path) and then served from a cache shared by all requests.
+     */
+    public FileHistory getFileHistory(RepositorySession session, String filePath) throws IOException {
+        ObjectId head = session.getRepository().resolve(Constants.HEAD);
+        if (head == null) {
+            return new FileHistory(new ArrayList<>(), new ArrayList<>());
+        }
+        return FILE_HISTORY_CACHE.get(head, filePath, () -> {
+            // the walk consults the index for the commits it covers; any HEAD gained since the
+            // last update are indexed in the background, not ahead of this walk
+            session.updateChangedPathIndexInBackground();
+            FileHistoryWalker walker = new FileHistoryWalker(session.getRepository(), session.getChangedPathIndex());
+            if (historySegmentThreads > 1) {
+                return walker.walkSegmented(filePath, head, historyExecutor(), historySegmentThreads, minSegmentCommits);
             }
+            return walker.walk(filePath, head);
+        });
+    }
 
-            commit = parent;
+    /** Counters of the file history cache. */
+    public FileHistoryCacheStats getFileHistoryCacheStats() {
+        return FILE_HISTORY_CACHE.getStats();
+    }
+
+    private synchronized ExecutorService historyExecutor() {
+        if (historyExecutor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            historyExecutor = Executors.newFixedThreadPool(historySegmentThreads, r -> {
+                Thread t = new Thread(r, "history-segment-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return historyExecutor;
+    }
+
+    private synchronized ExecutorService parseExecutor() {
+        if (parseExecutor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            parseExecutor = Executors.newFixedThreadPool(parseThreads - 1, r -> {
+                Thread t = new Thread(r, "parse-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
         }
+        return parseExecutor;
+    }
 
-        revWalk.dispose();
-        Collections.reverse(history);
-        return history;
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (historyExecutor != null) {
+            historyExecutor.shutdownNow();
+            historyExecutor = null;
+        }
+        if (parseExecutor != null) {
+            parseExecutor.shutdownNow();
+            parseExecutor = null;
+        }
+    }
+
+    /**
+     * Parses the distinct versions among blobIds on {@code gitscribe.parser.threads}
+     * threads ahead of the history walk, which then finds them in the parse cache.
+     * Does nothing when parallel parsing is off. Contents are loaded on the caller's
+     * thread; oversized versions are left to the walk, which reports them.
+     */
+    public void parseVersions(RepositorySession session, List<ObjectId> blobIds) throws IOException {
+        if (parseThreads <= 1) {
+            return;
+        }
+        List<String> sources = new ArrayList<>();
+        List<ObjectId> sourceIds = new ArrayList<>();
+        for (ObjectId blobId : new LinkedHashSet<>(blobIds)) {
+            if (ObjectId.zeroId().equals(blobId)) {
+                continue;
+            }
+            try {
+                sources.add(getBlobContent(session, blobId));
+                sourceIds.add(blobId);
+            } catch (OversizedBlobException e) {
+                // reported when the walk reaches it
+            }
+        }
+        JDTParser.parseBatch(sources, sourceIds, parseExecutor(), parseThreads);
     }
 
     /**
      * Load a file’s contents at a specific commit SHA.
      * Returns empty string if the file wasn’t present.
+     * Both the (commit, path) → blob lookup and the decoded content are cached.
      */
-    public String getFileContentAtCommit(String filePath, String commitSha) throws IOException {
-        Repository repo = git.getRepository();
-        ObjectId commitId = repo.resolve(commitSha);
-        try (RevWalk rw = new RevWalk(repo)) {
-            RevCommit commit = rw.parseCommit(commitId);
-            try (var treeWalk = new org.eclipse.jgit.treewalk.TreeWalk(repo)) {
-                treeWalk.addTree(commit.getTree());
-                treeWalk.setRecursive(true);
-                treeWalk.setFilter(org.eclipse.jgit.treewalk.filter.PathFilter.create(filePath));
-                if (!treeWalk.next()) return "";
-                ObjectId objId = treeWalk.getObjectId(0);
-                byte[] bytes = repo.open(objId).getBytes();
-                return new String(bytes, StandardCharsets.UTF_8);
+    public String getFileContentAtCommit(RepositorySession session, String filePath, String commitSha) throws IOException {
+        ObjectId blobId = getBlobIdAtCommit(session, filePath, commitSha);
+        if (ObjectId.zeroId().equals(blobId)) {
+            return "";
+        }
+        return getBlobContent(session, blobId);
+    }
+
+    /** Blob id of a file at a commit (memoized), or ObjectId.zeroId() if the file wasn’t present. */
+    public ObjectId getBlobIdAtCommit(RepositorySession session, String filePath, String commitSha) throws IOException {
+        ObjectId commitId = session.getRepository().resolve(commitSha);
+        ObjectId blobId = BLOB_CACHE.getBlobId(commitId, filePath);
+        if (blobId == null) {
+            ObjectReader reader = session.getObjectReader();
+            try (RevWalk rw = new RevWalk(reader)) {
+                RevCommit commit = rw.parseCommit(commitId);
+                try (TreeWalk treeWalk = TreeWalk.forPath(reader, filePath, commit.getTree())) {
+                    boolean isFile = treeWalk != null
+                            && treeWalk.getFileMode(0).getObjectType() == Constants.OBJ_BLOB;
+                    blobId = isFile ? treeWalk.getObjectId(0) : ObjectId.zeroId();
+                }
             }
+            BLOB_CACHE.putBlobId(commitId, filePath, blobId);
+        }
+        return blobId;
+    }
+
+    /**
+     * Resolves the blob id of the file at every commit of its history in one pass,
+     * using the path the file had at each commit. Absent files yield ObjectId.zeroId().
+     */
+    public List<ObjectId> resolveBlobIds(RepositorySession session, FileHistory history) throws IOException {
+        return resolveBlobIds(session, history.getCommits(), history.getPaths());
+    }
+
+    /**
+     * Resolves paths.get(i) at commits.get(i) for every i in one pass, re-using
+     * subtree ids shared by neighbouring commits. The results also seed the
+     * (commit, path) memo used by {@link #getFileContentAtCommit}.
+     */
+    public List<ObjectId> resolveBlobIds(RepositorySession session, List<RevCommit> commits, List<String> paths) throws IOException {
+        List<ObjectId> blobIds = new BlobIdResolver(session.getRepository()).resolve(commits, paths);
+        for (int i = 0; i < blobIds.size(); i++) {
+            BLOB_CACHE.putBlobId(commits.get(i), paths.get(i), blobIds.get(i));
+        }
+        return blobIds;
+    }
+
+    /**
+     * Load (and cache) the UTF-8 content of a blob. Blobs over the parse limit are not
+     * loaded; an {@link OversizedBlobException} is thrown instead.
+     */
+    public String getBlobContent(RepositorySession session, AnyObjectId blobId) throws IOException {
+        String cached = BLOB_CACHE.getContent(blobId);
+        if (cached != null) {
+            return cached;
         }
+        ObjectLoader loader = session.getObjectReader().open(blobId, Constants.OBJ_BLOB);
+        if (loader.getSize() > maxParseBytes) {
+            throw new OversizedBlobException("blob " + blobId.name(), loader.getSize(), maxParseBytes);
+        }
+        byte[] bytes = loader.getBytes();
+        String content = new String(bytes, StandardCharsets.UTF_8);
+        BLOB_CACHE.putContent(blobId, content, bytes.length);
+        return content;
+    }
+
+    /**
+     * Lexical method scan of a blob of any size. The blob is streamed through JGit's
+     * loader, so it is never held in memory whole, and no AST is built.
+     */
+    public ScannedSource scanBlob(RepositorySession session, AnyObjectId blobId) throws IOException {
+        ObjectLoader loader = session.getObjectReader().open(blobId, Constants.OBJ_BLOB);
+        try (ObjectStream in = loader.openStream();
+             Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return LexicalMethodScanner.scan(reader);
+        }
+    }
+
+    /** Counters of the blob cache shared by all repositories. */
+    public BlobCacheStats getBlobCacheStats() {
+        return BLOB_CACHE.getStats();
     }
 
     /**
      * List the paths of *all* files modified between two commits.
      * Useful for passing into your FileRenameDetector.
      */
-    public List<String> getModifiedFilePathsBetween(RevCommit oldCommit, RevCommit newCommit) throws IOException {
-        Repository repo = git.getRepository();
-        try (ObjectReader reader = repo.newObjectReader();
-             DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+    public List<String> getModifiedFilePathsBetween(RepositorySession session, RevCommit oldCommit, RevCommit newCommit) throws IOException {
+        return getChangeSet(session, oldCommit, newCommit).getNewPaths();
+    }
+
+    /**
+     * Added/modified/deleted/renamed files between two commits, with blob ids and
+     * rename similarity scores. Each pair is diffed once and then served from a
+     * cache shared by all methods and requests.
+     */
+    public CommitChangeSet getChangeSet(RepositorySession session, RevCommit oldCommit, RevCommit newCommit) throws IOException {
+        return CHANGE_SET_CACHE.get(oldCommit, newCommit, () -> computeChangeSet(session, oldCommit, newCommit));
+    }
 
-            df.setRepository(repo);
+    /** Counters of the commit-pair change-set cache. */
+    public ChangeSetCacheStats getChangeSetCacheStats() {
+        return CHANGE_SET_CACHE.getStats();
+    }
+
+    private static CommitChangeSet computeChangeSet(RepositorySession session, RevCommit oldCommit, RevCommit newCommit) throws IOException {
+        ObjectReader reader = session.getObjectReader();
+        try (DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+
+            df.setReader(reader, session.getRepository().getConfig());
+            df.setDetectRenames(true);
 
             CanonicalTreeParser oldIter = new CanonicalTreeParser(null, reader, oldCommit.getTree());
             CanonicalTreeParser newIter = new CanonicalTreeParser(null, reader, newCommit.getTree());
 
-            List<String> paths = new ArrayList<>();
+            List<FileChange> changes = new ArrayList<>();
             for (DiffEntry e : df.scan(oldIter, newIter)) {
-                paths.add(e.getNewPath());
+                changes.add(FileChange.of(e));
             }
-            return paths;
+            return new CommitChangeSet(oldCommit.copy(), newCommit.copy(), changes);
         }
     }
-
-    /** Clean up when you’re done. */
-    public void close() {
-        if (git != null) git.getRepository().close();
-    }
 }
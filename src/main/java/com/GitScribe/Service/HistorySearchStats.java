@@ -0,0 +1,31 @@
+package com.GitScribe.Service;
+
+/**
+ * Counters of the bisection history search (gitscribe.history.search=bisect): how many
+ * method versions were looked up, against the one lookup per version a linear walk does.
+ */
+public class HistorySearchStats {
+    private long methodsSearched;
+    private long versionsInHistory;
+    private long versionsProbed;
+    private long pairsCompared;
+
+    /** Method histories built by bisection. */
+    public long getMethodsSearched() { return methodsSearched; }
+    public void setMethodsSearched(long methodsSearched) { this.methodsSearched = methodsSearched; }
+
+    /** Versions a linear walk would have looked each method up in, summed over methods. */
+    public long getVersionsInHistory() { return versionsInHistory; }
+    public void setVersionsInHistory(long versionsInHistory) { this.versionsInHistory = versionsInHistory; }
+
+    /** Versions whose method text was actually looked up. */
+    public long getVersionsProbed() { return versionsProbed; }
+    public void setVersionsProbed(long versionsProbed) { this.versionsProbed = versionsProbed; }
+
+    /** Commit pairs handed to the change detectors. */
+    public long getPairsCompared() { return pairsCompared; }
+    public void setPairsCompared(long pairsCompared) { this.pairsCompared = pairsCompared; }
+
+    /** Lookups saved over a linear walk, at least 0. */
+    public long getProbesSaved() { return Math.max(0, versionsInHistory - versionsProbed); }
+}
@@ -1,72 +1,275 @@
 package com.GitScribe.Service;
 
 import org.eclipse.jdt.core.dom.*;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import com.GitScribe.Service.MethodDeclarationData;
 
 @Service
 public class JDTParser {
 
-    // Cache parsed methods per source to avoid re-parsing
-    private static final Map<Integer, List<MethodDeclarationData>> METHOD_CACHE = new ConcurrentHashMap<>();
+    // Method descriptors per source, keyed by content id; no ASTs are kept
+    private static final ParseCache PARSE_CACHE = new ParseCache();
+
+    private static final String STUB_CLASS = "GitScribeParsedMethod";
+
+    // One parser per thread; JDT resets a parser to its defaults after every createAST
+    private static final ThreadLocal<ASTParser> PARSERS = ThreadLocal.withInitial(() -> ASTParser.newParser(AST.JLS17));
+
+    // Parse tiers, see getTierStats()
+    private static final AtomicLong HEADER_PARSES = new AtomicLong();
+    private static final AtomicLong FULL_PARSES = new AtomicLong();
+    private static final AtomicLong METHODS_DESCRIBED = new AtomicLong();
+    private static final AtomicLong METHOD_BODY_PARSES = new AtomicLong();
+    private static final AtomicLong UNCHANGED_METHOD_PAIRS = new AtomicLong();
+    private static final AtomicLong UNTOUCHED_METHOD_PAIRS = new AtomicLong();
+
+    // Backend used for whole-file parses; methods parsed on their own always use JDT
+    private static volatile MethodParserBackend backend = new JdtParserBackend();
+
+    @Value("${gitscribe.parser.backend:" + JdtParserBackend.NAME + "}")
+    private String backendName = JdtParserBackend.NAME;
+
+    @PostConstruct
+    public void installBackend() {
+        setBackend(MethodParserBackend.named(backendName));
+        System.out.println("JDTParser: parser backend " + backend.getName());
+    }
+
+    /** Switches the backend of {@link #getMethods}; cached results of the previous one are dropped. */
+    public static synchronized void setBackend(MethodParserBackend newBackend) {
+        if (!newBackend.getName().equals(backend.getName())) {
+            backend = newBackend;
+            PARSE_CACHE.clear();
+        }
+    }
+
+    /** Drops every cached parse result. */
+    public static void clearCache() {
+        PARSE_CACHE.clear();
+    }
+
+    public static MethodParserBackend getBackend() {
+        return backend;
+    }
 
     /**
-     * Uses JDT AST (without binding resolution) to parse method declarations and bodies.
+     * Parses method declarations and bodies with the configured backend (JDT by default).
+     * Results are cached by a SHA-1 of the source (the git blob id of its UTF-8 bytes).
      */
     public static List<MethodDeclarationData> getMethods(String javaSource) {
         if (javaSource == null) {
             return Collections.emptyList();
         }
-        int key = javaSource.hashCode();
-        List<MethodDeclarationData> cached = METHOD_CACHE.get(key);
-        if (cached != null) {
-            return cached;
+        return getMethods(javaSource, contentId(javaSource));
+    }
+
+    /**
+     * Same as {@link #getMethods(String)} for source decoded from the blob sourceId,
+     * which is used as the cache key instead of hashing the text again.
+     */
+    public static List<MethodDeclarationData> getMethods(String javaSource, AnyObjectId sourceId) {
+        if (javaSource == null) {
+            return Collections.emptyList();
+        }
+        List<MethodDescriptor> descriptors = PARSE_CACHE.get(sourceId);
+        if (descriptors == null) {
+            descriptors = parseAndCache(javaSource, sourceId);
         }
+        List<MethodDeclarationData> methods = new ArrayList<>(descriptors.size());
+        for (MethodDescriptor descriptor : descriptors) {
+            methods.add(new MethodDeclarationData(descriptor, javaSource));
+        }
+        return methods;
+    }
 
-        // split lines for line-number calculations
-        String[] lines = javaSource.split("");
+    /**
+     * Parses every source that is not in the parse cache yet, on up to parallelism
+     * threads (the caller's and tasks on executor), and caches the results, so that
+     * {@link #getMethods(String, AnyObjectId)} finds them. sources.get(i) is the content
+     * of the blob sourceIds.get(i). A source that fails to parse is left out; it fails
+     * again, on the caller's thread, when it is asked for. Returns the number parsed.
+     */
+    public static int parseBatch(List<String> sources, List<? extends AnyObjectId> sourceIds,
+                                 ExecutorService executor, int parallelism) {
+        List<String> pendingSources = new ArrayList<>();
+        List<AnyObjectId> pendingIds = new ArrayList<>();
+        Set<AnyObjectId> seen = new HashSet<>();
+        for (int i = 0; i < sources.size(); i++) {
+            AnyObjectId id = sourceIds.get(i);
+            if (sources.get(i) != null && seen.add(id) && !PARSE_CACHE.contains(id)) {
+                pendingSources.add(sources.get(i));
+                pendingIds.add(id);
+            }
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger parsed = new AtomicInteger();
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < pendingSources.size()) {
+                try {
+                    parseAndCache(pendingSources.get(i), pendingIds.get(i));
+                    parsed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // left for getMethods to report
+                }
+            }
+        };
+        List<Future<?>> tasks = new ArrayList<>();
+        int workers = Math.min(parallelism, pendingSources.size());
+        for (int t = 1; t < workers; t++) {
+            tasks.add(executor.submit(worker));
+        }
+        worker.run();
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // workers catch their own failures
+        }
+        return parsed.get();
+    }
 
-        ASTParser parser = ASTParser.newParser(AST.JLS17);
-        parser.setSource(javaSource.toCharArray());
-        parser.setKind(ASTParser.K_COMPILATION_UNIT);
-        // disable bindings for speed
-        parser.setResolveBindings(false);
+    private static List<MethodDescriptor> parseAndCache(String javaSource, AnyObjectId sourceId) {
+        MethodParserBackend parser = backend;
+        List<MethodDescriptor> descriptors = parser.parseDescriptors(javaSource);
+        METHODS_DESCRIBED.addAndGet(descriptors.size());
+        if (parser == backend) {
+            PARSE_CACHE.put(sourceId, descriptors);
+        }
+        return descriptors;
+    }
+
+    /** Counters of the parse cache shared by all sources. */
+    public static ParseCacheStats getCacheStats() {
+        return PARSE_CACHE.getStats();
+    }
+
+    /** How much parsing was done at each tier, and how much body work was avoided. */
+    public static ParseTierStats getTierStats() {
+        ParseTierStats stats = new ParseTierStats();
+        stats.setHeaderParses(HEADER_PARSES.get());
+        stats.setFullParses(FULL_PARSES.get());
+        stats.setMethodsDescribed(METHODS_DESCRIBED.get());
+        stats.setMethodBodyParses(METHOD_BODY_PARSES.get());
+        stats.setUnchangedMethodPairs(UNCHANGED_METHOD_PAIRS.get());
+        stats.setUntouchedMethodPairs(UNTOUCHED_METHOD_PAIRS.get());
+        return stats;
+    }
+
+    /** Counts a whole-file parse with bodies done outside this class (the JavaParser backend). */
+    static void recordFullParse() {
+        FULL_PARSES.incrementAndGet();
+    }
+
+    /** Counts a pair of method versions whose text is identical, so no body was compared. */
+    static void recordUnchangedMethod() {
+        UNCHANGED_METHOD_PAIRS.incrementAndGet();
+    }
+
+    /** Counts a pair of file versions whose diff does not touch a method, which was carried forward unread. */
+    static void recordUntouchedMethod() {
+        UNTOUCHED_METHOD_PAIRS.incrementAndGet();
+    }
+
+    /**
+     * Parses the text of a single method declaration on its own, wrapped in a stub
+     * class. Returns null if JDT finds no method in it.
+     */
+    public static MethodDeclaration parseMethod(String methodText) {
+        return parseMethod(methodText, STUB_CLASS);
+    }
+
+    /** Same as {@link #parseMethod(String)} with a stub class of the given name, so constructors parse as such. */
+    static MethodDeclaration parseMethod(String methodText, String className) {
+        return parseMethodIn("class " + className, methodText);
+    }
+
+    /** Same as {@link #parseMethod(String)} for the compact canonical constructor of the record recordName. */
+    static MethodDeclaration parseCompactConstructor(String methodText, String recordName) {
+        return parseMethodIn("record " + recordName + "()", methodText);
+    }
 
-        CompilationUnit cu = (CompilationUnit) parser.createAST(null);
-        List<MethodDeclarationData> methods = new ArrayList<>();
+    private static MethodDeclaration parseMethodIn(String typeHeader, String methodText) {
+        METHOD_BODY_PARSES.incrementAndGet();
+        List<MethodDeclaration> found = new ArrayList<>();
+        parse(typeHeader + " {\n" + methodText + "\n}", false).accept(new ASTVisitor() {
+            @Override
+            public boolean visit(MethodDeclaration node) {
+                if (found.isEmpty()) {
+                    found.add(node);
+                }
+                return false;
+            }
+        });
+        return found.isEmpty() ? null : found.get(0);
+    }
 
-        cu.accept(new ASTVisitor() {
+    /** The method declaration starting at startOffset in a full parse of javaSource, or null. */
+    static MethodDeclaration findMethod(String javaSource, int startOffset) {
+        List<MethodDeclaration> found = new ArrayList<>();
+        parse(javaSource).accept(new ASTVisitor() {
             @Override
             public boolean visit(MethodDeclaration node) {
-                int start = node.getStartPosition();
-                int length = node.getLength();
-                int end = start + length;
-                int startLine = getLineForOffset(start, lines);
-                int endLine = getLineForOffset(end, lines);
-                String block = javaSource.substring(start, end);
-                methods.add(new MethodDeclarationData(node, block, startLine, endLine));
-                // do not visit inner nodes
+                if (node.getStartPosition() == startOffset) {
+                    found.add(node);
+                }
                 return false;
             }
         });
+        return found.isEmpty() ? null : found.get(0);
+    }
 
-        METHOD_CACHE.put(key, methods);
-        return methods;
+    /** Full parse of javaSource, method bodies included. */
+    static CompilationUnit parse(String javaSource) {
+        FULL_PARSES.incrementAndGet();
+        return parse(javaSource, false);
+    }
+
+    /**
+     * First-tier parse: declarations only, method bodies are skipped by JDT (each body
+     * is an empty block that still spans its source range). Enough for descriptors.
+     */
+    static CompilationUnit parseHeaders(String javaSource) {
+        HEADER_PARSES.incrementAndGet();
+        return parse(javaSource, true);
+    }
+
+    private static CompilationUnit parse(String javaSource, boolean ignoreMethodBodies) {
+        ASTParser parser = PARSERS.get();
+        parser.setSource(javaSource.toCharArray());
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        // disable bindings for speed
+        parser.setResolveBindings(false);
+        parser.setIgnoreMethodBodies(ignoreMethodBodies);
+        return (CompilationUnit) parser.createAST(null);
     }
 
-    private static int getLineForOffset(int offset, String[] lines) {
-        int line = 1;
-        int count = 0;
-        for (String l : lines) {
-            count += l.length() + 1;
-            if (count > offset) break;
-            line++;
+    /** Git blob id of the UTF-8 encoding of source. */
+    static ObjectId contentId(String source) {
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+            return formatter.idFor(Constants.OBJ_BLOB, bytes);
         }
-        return line;
     }
 }
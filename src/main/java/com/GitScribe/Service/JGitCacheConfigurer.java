@@ -0,0 +1,50 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Installs JGit's process-wide pack window cache settings from the application
+ * configuration ({@code gitscribe.jgit.*}). Defaults are JGit's own. The stream file
+ * threshold decides which objects JGit streams instead of inflating into one array.
+ */
+@Component
+public class JGitCacheConfigurer {
+
+    @Value("${gitscribe.jgit.packed-git-limit:" + (10 * WindowCacheConfig.MB) + "}")
+    private long packedGitLimit;
+
+    @Value("${gitscribe.jgit.packed-git-window-size:" + (8 * WindowCacheConfig.KB) + "}")
+    private int packedGitWindowSize;
+
+    @Value("${gitscribe.jgit.packed-git-mmap:false}")
+    private boolean packedGitMMAP;
+
+    @Value("${gitscribe.jgit.packed-git-open-files:128}")
+    private int packedGitOpenFiles;
+
+    @Value("${gitscribe.jgit.delta-base-cache-limit:" + (10 * WindowCacheConfig.MB) + "}")
+    private int deltaBaseCacheLimit;
+
+    @Value("${gitscribe.jgit.stream-file-threshold:" + (50 * WindowCacheConfig.MB) + "}")
+    private int streamFileThreshold;
+
+    @PostConstruct
+    public void install() {
+        WindowCacheConfig config = new WindowCacheConfig();
+        config.setPackedGitLimit(packedGitLimit);
+        config.setPackedGitWindowSize(packedGitWindowSize);
+        config.setPackedGitMMAP(packedGitMMAP);
+        config.setPackedGitOpenFiles(packedGitOpenFiles);
+        config.setDeltaBaseCacheLimit(deltaBaseCacheLimit);
+        config.setStreamFileThreshold(streamFileThreshold);
+        config.install();
+        System.out.println("JGitCacheConfigurer: packedGitLimit=" + packedGitLimit
+                + " windowSize=" + packedGitWindowSize + " mmap=" + packedGitMMAP
+                + " openFiles=" + packedGitOpenFiles + " deltaBaseCacheLimit=" + deltaBaseCacheLimit
+                + " streamFileThreshold=" + streamFileThreshold);
+    }
+}
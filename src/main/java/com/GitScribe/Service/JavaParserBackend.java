@@ -0,0 +1,414 @@
+package com.GitScribe.Service;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.comments.JavadocComment;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.ArrayInitializerExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.CharLiteralExpr;
+import com.github.javaparser.ast.expr.ClassExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LiteralStringValueExpr;
+import com.github.javaparser.ast.expr.MarkerAnnotationExpr;
+import com.github.javaparser.ast.expr.MemberValuePair;
+import com.github.javaparser.ast.expr.NormalAnnotationExpr;
+import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.type.ArrayType;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.IntersectionType;
+import com.github.javaparser.ast.type.PrimitiveType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.UnionType;
+import com.github.javaparser.ast.type.WildcardType;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * JavaParser backend. Descriptors are built to match the JDT backend: types, parameters
+ * and annotations are printed the way JDT's {@code toString()} prints them, modifier
+ * flags use JDT's constants, and a method's text starts at its javadoc. Like the JDT
+ * backend, methods of local and anonymous classes inside a method body are not listed.
+ */
+public class JavaParserBackend implements MethodParserBackend {
+
+    public static final String NAME = "javaparser";
+
+    // JavaParser instances are not thread-safe; tokens must be stored, node ranges come from them
+    private static final ThreadLocal<JavaParser> PARSER = ThreadLocal.withInitial(() -> new JavaParser(
+            new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17)));
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<MethodDescriptor> parseDescriptors(String javaSource) {
+        // JavaParser has no mode that skips method bodies
+        JDTParser.recordFullParse();
+        ParseResult<CompilationUnit> result = PARSER.get().parse(javaSource);
+        CompilationUnit cu = result.getResult().orElse(null);
+        if (cu == null) {
+            return Collections.emptyList();
+        }
+        LineIndex lines = LineIndex.of(javaSource);
+        int[] lineStarts = lineStarts(javaSource);
+        List<Comment> comments = new ArrayList<>();
+        for (Comment c : cu.getAllComments()) {
+            if (c.getBegin().isPresent() && c.getEnd().isPresent()) {
+                comments.add(c);
+            }
+        }
+        comments.sort(Comparator.comparing(c -> c.getBegin().get()));
+        int[] commentStarts = new int[comments.size()];
+        int[] commentEnds = new int[comments.size()];
+        for (int i = 0; i < comments.size(); i++) {
+            commentStarts[i] = offset(lineStarts, comments.get(i).getBegin().get());
+            commentEnds[i] = offset(lineStarts, comments.get(i).getEnd().get()) + 1;
+        }
+
+        List<MethodDescriptor> methods = new ArrayList<>();
+        cu.accept(new VoidVisitorAdapter<Void>() {
+            @Override
+            public void visit(MethodDeclaration node, Void arg) {
+                add(node);
+                // do not visit inner nodes
+            }
+
+            @Override
+            public void visit(ConstructorDeclaration node, Void arg) {
+                add(node);
+            }
+
+            private void add(CallableDeclaration<?> node) {
+                if (!node.getBegin().isPresent() || !node.getEnd().isPresent()) {
+                    return;
+                }
+                int start = javadocStart(javaSource, offset(lineStarts, node.getBegin().get()),
+                        comments, commentStarts, commentEnds);
+                int end = offset(lineStarts, node.getEnd().get()) + 1;
+                methods.add(describe(node, javaSource, start, end,
+                        lines.lineOf(start), lines.lineOf(end)));
+            }
+        }, null);
+        methods.sort(Comparator.comparingInt(MethodDescriptor::getStartOffset));
+        return Collections.unmodifiableList(methods);
+    }
+
+    private static MethodDescriptor describe(CallableDeclaration<?> node, String source, int start, int end,
+                                             int startLine, int endLine) {
+        List<String> parameters = new ArrayList<>();
+        List<String> parameterTypes = new ArrayList<>();
+        for (Parameter p : node.getParameters()) {
+            parameters.add(parameter(p));
+            parameterTypes.add(type(withoutNameDimensions(p.getType())) + (p.isVarArgs() ? "..." : ""));
+        }
+        List<String> thrownTypes = new ArrayList<>();
+        for (Type t : node.getThrownExceptions()) {
+            thrownTypes.add(type(t));
+        }
+        boolean constructor = node instanceof ConstructorDeclaration;
+        String returnType = constructor ? "" : type(withoutNameDimensions(((MethodDeclaration) node).getType()));
+        return new MethodDescriptor(node.getNameAsString(), parameters.toString(), parameters, parameterTypes,
+                modifierFlags(node.getModifiers()), modifiers(node.getModifiers(), node.getAnnotations()),
+                returnType, thrownTypes, constructor, start, end - start, startLine, endLine,
+                MethodDescriptor.hash(source, start, end));
+    }
+
+    /**
+     * Start of the javadoc JDT would attach to a declaration starting at declarationStart:
+     * the nearest javadoc before it with only whitespace and other comments in between.
+     * JavaParser attaches the nearest comment of any kind, and none across a blank line.
+     */
+    private static int javadocStart(String source, int declarationStart, List<Comment> comments,
+                                    int[] commentStarts, int[] commentEnds) {
+        int pos = declarationStart;
+        for (int i = comments.size() - 1; i >= 0; i--) {
+            if (commentEnds[i] > pos) {
+                continue;
+            }
+            for (int j = commentEnds[i]; j < pos; j++) {
+                if (!Character.isWhitespace(source.charAt(j))) {
+                    return declarationStart;
+                }
+            }
+            if (comments.get(i) instanceof JavadocComment) {
+                return commentStarts[i];
+            }
+            pos = commentStarts[i];
+        }
+        return declarationStart;
+    }
+
+    /** Offsets of the first character of every line, for the line terminators JavaParser counts. */
+    private static int[] lineStarts(String source) {
+        int[] starts = new int[16];
+        int count = 1;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '\r' && i + 1 < source.length() && source.charAt(i + 1) == '\n') {
+                i++;
+            } else if (c != '\r' && c != '\n') {
+                continue;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = i + 1;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    private static int offset(int[] lineStarts, Position position) {
+        return lineStarts[position.line - 1] + position.column - 1;
+    }
+
+    private static int modifierFlags(NodeList<Modifier> modifiers) {
+        int flags = 0;
+        for (Modifier m : modifiers) {
+            org.eclipse.jdt.core.dom.Modifier.ModifierKeyword keyword =
+                    org.eclipse.jdt.core.dom.Modifier.ModifierKeyword.toKeyword(m.getKeyword().asString());
+            if (keyword != null) {
+                flags |= keyword.toFlagValue();
+            }
+        }
+        return flags;
+    }
+
+    /** Modifier keywords and annotations in source order, each as JDT prints it. */
+    private static List<String> modifiers(NodeList<Modifier> modifiers, NodeList<AnnotationExpr> annotations) {
+        List<Node> nodes = new ArrayList<>(modifiers);
+        nodes.addAll(annotations);
+        nodes.sort(Comparator.comparing(n -> n.getBegin().orElse(Position.HOME)));
+        List<String> printed = new ArrayList<>(nodes.size());
+        for (Node n : nodes) {
+            printed.add(n instanceof Modifier ? ((Modifier) n).getKeyword().asString() : annotation((AnnotationExpr) n));
+        }
+        return printed;
+    }
+
+    /** A parameter as JDT prints it, e.g. "final int a[]" or "@Nullable String... rest". */
+    private static String parameter(Parameter p) {
+        StringBuilder sb = new StringBuilder();
+        for (String modifier : modifiers(p.getModifiers(), p.getAnnotations())) {
+            sb.append(modifier).append(' ');
+        }
+        Type type = p.getType();
+        int dimensions = 0;
+        while (isNameDimension(type)) {
+            type = ((ArrayType) type).getComponentType();
+            dimensions++;
+        }
+        sb.append(type(type));
+        if (p.isVarArgs()) {
+            if (p.getVarArgsAnnotations().isNonEmpty()) {
+                sb.append(' ');
+                appendAnnotations(sb, p.getVarArgsAnnotations());
+            }
+            sb.append("...");
+        }
+        sb.append(' ').append(p.getNameAsString());
+        for (int i = 0; i < dimensions; i++) {
+            sb.append("[]");
+        }
+        return sb.toString();
+    }
+
+    // "int a[]" and "int m()[]": JDT keeps these brackets out of the declared type
+    private static boolean isNameDimension(Type type) {
+        return type instanceof ArrayType && ((ArrayType) type).getOrigin() == ArrayType.Origin.NAME;
+    }
+
+    private static Type withoutNameDimensions(Type type) {
+        while (isNameDimension(type)) {
+            type = ((ArrayType) type).getComponentType();
+        }
+        return type;
+    }
+
+    /** A type as JDT prints it: no space after commas in type arguments, annotations first. */
+    private static String type(Type type) {
+        StringBuilder sb = new StringBuilder();
+        appendType(sb, type);
+        return sb.toString();
+    }
+
+    private static void appendType(StringBuilder sb, Type type) {
+        if (type instanceof ArrayType) {
+            ArrayType array = (ArrayType) type;
+            appendType(sb, array.getComponentType());
+            if (array.getAnnotations().isNonEmpty()) {
+                sb.append(' ');
+                appendAnnotations(sb, array.getAnnotations());
+            }
+            sb.append("[]");
+            return;
+        }
+        if (type instanceof ClassOrInterfaceType) {
+            ClassOrInterfaceType classType = (ClassOrInterfaceType) type;
+            if (classType.getScope().isPresent()) {
+                appendType(sb, classType.getScope().get());
+                sb.append('.');
+            }
+            appendAnnotations(sb, classType.getAnnotations());
+            sb.append(classType.getNameAsString());
+            if (classType.getTypeArguments().isPresent()) {
+                sb.append('<');
+                appendTypes(sb, classType.getTypeArguments().get(), ",");
+                sb.append('>');
+            }
+            return;
+        }
+        if (type instanceof WildcardType) {
+            WildcardType wildcard = (WildcardType) type;
+            appendAnnotations(sb, wildcard.getAnnotations());
+            sb.append('?');
+            if (wildcard.getExtendedType().isPresent()) {
+                sb.append(" extends ");
+                appendType(sb, wildcard.getExtendedType().get());
+            } else if (wildcard.getSuperType().isPresent()) {
+                sb.append(" super ");
+                appendType(sb, wildcard.getSuperType().get());
+            }
+            return;
+        }
+        if (type instanceof UnionType) {
+            appendTypes(sb, ((UnionType) type).getElements(), "|");
+            return;
+        }
+        if (type instanceof IntersectionType) {
+            appendTypes(sb, ((IntersectionType) type).getElements(), " & ");
+            return;
+        }
+        if (type instanceof PrimitiveType) {
+            appendAnnotations(sb, type.getAnnotations());
+            sb.append(((PrimitiveType) type).getType().asString());
+            return;
+        }
+        // void, var
+        sb.append(type.asString());
+    }
+
+    private static void appendTypes(StringBuilder sb, NodeList<? extends Type> types, String separator) {
+        for (int i = 0; i < types.size(); i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            appendType(sb, types.get(i));
+        }
+    }
+
+    private static void appendAnnotations(StringBuilder sb, NodeList<AnnotationExpr> annotations) {
+        for (AnnotationExpr a : annotations) {
+            sb.append(annotation(a)).append(' ');
+        }
+    }
+
+    /** An annotation as JDT prints it, e.g. "@SuppressWarnings(value={"a","b"})". */
+    private static String annotation(AnnotationExpr a) {
+        StringBuilder sb = new StringBuilder("@").append(a.getNameAsString());
+        if (a instanceof SingleMemberAnnotationExpr) {
+            sb.append('(');
+            appendExpression(sb, ((SingleMemberAnnotationExpr) a).getMemberValue());
+            sb.append(')');
+        } else if (a instanceof NormalAnnotationExpr) {
+            sb.append('(');
+            NodeList<MemberValuePair> pairs = ((NormalAnnotationExpr) a).getPairs();
+            for (int i = 0; i < pairs.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(pairs.get(i).getNameAsString()).append('=');
+                appendExpression(sb, pairs.get(i).getValue());
+            }
+            sb.append(')');
+        } else if (!(a instanceof MarkerAnnotationExpr)) {
+            return a.toString();
+        }
+        return sb.toString();
+    }
+
+    /** The annotation element values JDT and JavaParser print differently; anything else as JavaParser prints it. */
+    private static void appendExpression(StringBuilder sb, Expression e) {
+        if (e instanceof StringLiteralExpr) {
+            sb.append('"').append(((StringLiteralExpr) e).getValue()).append('"');
+        } else if (e instanceof CharLiteralExpr) {
+            sb.append('\'').append(((CharLiteralExpr) e).getValue()).append('\'');
+        } else if (e instanceof LiteralStringValueExpr) {
+            sb.append(((LiteralStringValueExpr) e).getValue());
+        } else if (e instanceof ArrayInitializerExpr) {
+            sb.append('{');
+            NodeList<Expression> values = ((ArrayInitializerExpr) e).getValues();
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendExpression(sb, values.get(i));
+            }
+            sb.append('}');
+        } else if (e instanceof AnnotationExpr) {
+            sb.append(annotation((AnnotationExpr) e));
+        } else if (e instanceof ClassExpr) {
+            appendType(sb, ((ClassExpr) e).getType());
+            sb.append(".class");
+        } else if (e instanceof FieldAccessExpr) {
+            appendExpression(sb, ((FieldAccessExpr) e).getScope());
+            sb.append('.').append(((FieldAccessExpr) e).getNameAsString());
+        } else if (e instanceof BinaryExpr) {
+            BinaryExpr binary = (BinaryExpr) e;
+            appendExpression(sb, binary.getLeft());
+            sb.append(' ').append(binary.getOperator().asString()).append(' ');
+            appendExpression(sb, binary.getRight());
+        } else if (e instanceof UnaryExpr) {
+            UnaryExpr unary = (UnaryExpr) e;
+            if (unary.isPrefix()) {
+                sb.append(unary.getOperator().asString());
+                appendExpression(sb, unary.getExpression());
+            } else {
+                appendExpression(sb, unary.getExpression());
+                sb.append(unary.getOperator().asString());
+            }
+        } else if (e instanceof EnclosedExpr) {
+            sb.append('(');
+            appendExpression(sb, ((EnclosedExpr) e).getInner());
+            sb.append(')');
+        } else if (e instanceof CastExpr) {
+            sb.append('(');
+            appendType(sb, ((CastExpr) e).getType());
+            sb.append(')');
+            appendExpression(sb, ((CastExpr) e).getExpression());
+        } else if (e instanceof ConditionalExpr) {
+            ConditionalExpr conditional = (ConditionalExpr) e;
+            appendExpression(sb, conditional.getCondition());
+            sb.append(" ? ");
+            appendExpression(sb, conditional.getThenExpr());
+            sb.append(" : ");
+            appendExpression(sb, conditional.getElseExpr());
+        } else {
+            sb.append(e.toString());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Eclipse JDT DOM backend, without binding resolution. The default. Files are parsed
+ * header-only: descriptors need declarations and source ranges, not bodies, which are
+ * parsed one method at a time when {@link MethodDeclarationData#getMethodDeclaration()}
+ * asks for them.
+ */
+public class JdtParserBackend implements MethodParserBackend {
+
+    public static final String NAME = "jdt";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<MethodDescriptor> parseDescriptors(String javaSource) {
+        LineIndex lines = LineIndex.of(javaSource);
+
+        CompilationUnit cu = JDTParser.parseHeaders(javaSource);
+        List<MethodDescriptor> methods = new ArrayList<>();
+
+        cu.accept(new ASTVisitor() {
+            @Override
+            public boolean visit(MethodDeclaration node) {
+                int start = node.getStartPosition();
+                int end = start + node.getLength();
+                int startLine = lines.lineOf(start);
+                int endLine = lines.lineOf(end);
+                methods.add(MethodDescriptor.of(node, javaSource, startLine, endLine));
+                // do not visit inner nodes
+                return false;
+            }
+        });
+        return Collections.unmodifiableList(methods);
+    }
+}
@@ -0,0 +1,476 @@
+package com.GitScribe.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming, AST-free scan of a Java source for its method declarations.
+ *
+ * Used for files too large to parse: the source is read once from a stream and only
+ * the text of each method (javadoc, annotations and modifiers included, as in a JDT
+ * {@code MethodDeclaration} range) is kept, together with its name and line range.
+ * Member-level structure is recognized from tokens alone: nested type bodies are
+ * descended into, while field initializers, initializer blocks, enum constants and
+ * method bodies are skipped with string- and comment-aware brace matching. As in JDT's
+ * header-only parse, methods of enum constant bodies and of anonymous classes in field
+ * initializers are reported, those of local and anonymous classes in method bodies are not.
+ */
+public final class LexicalMethodScanner {
+
+    private static final int EOF = -1;
+
+    private static final int TOP = 0;
+    private static final int CLASS = 1;
+    private static final int ENUM = 2;
+    private static final int ANNOTATION = 3;
+    private static final int RECORD = 4;
+
+    // token kinds
+    private static final int T_EOF = 0;
+    private static final int T_IDENT = 1;
+    private static final int T_SYMBOL = 2;
+    private static final int T_LITERAL = 3;
+    private static final int T_JAVADOC = 4;
+
+    private final Reader in;
+    private final List<ScannedSource.ScannedMethod> methods = new ArrayList<>();
+
+    // char-level state
+    private final int[] pushback = new int[4];
+    private int pushed;
+    private int line = 1;
+    /** Text of the current member while it may still turn out to be a method, else null. */
+    private StringBuilder capture;
+
+    // current token
+    private int tokenKind;
+    private String tokenText;
+    private char tokenSymbol;
+    private int tokenLine;
+    private int tokenStart;
+    private boolean tokenPushedBack;
+
+    private LexicalMethodScanner(Reader in) {
+        this.in = in;
+    }
+
+    /** Scans the whole stream; the reader is not closed. */
+    public static ScannedSource scan(Reader in) throws IOException {
+        LexicalMethodScanner scanner = new LexicalMethodScanner(in);
+        scanner.scanBody(TOP);
+        return new ScannedSource(scanner.methods);
+    }
+
+    /** Scans members until the closing brace of the current body, or EOF at top level. */
+    private void scanBody(int kind) throws IOException {
+        boolean enumConstants = kind == ENUM;
+        while (true) {
+            capture = new StringBuilder();
+            nextToken();
+            if (tokenKind == T_EOF) {
+                return;
+            }
+            if (isSymbol('}')) {
+                if (kind != TOP) {
+                    return;
+                }
+                continue;
+            }
+            if (enumConstants) {
+                enumConstants = false;
+                skipEnumConstants();
+                continue;
+            }
+            if (!isSymbol(';')) {
+                scanMember(kind);
+            }
+        }
+    }
+
+    private void scanMember(int kind) throws IOException {
+        trimCaptureToToken();
+        int startLine = tokenLine;
+        boolean hasTokens = false;
+        boolean sawParen = false;
+        int typeKind = -1;
+        String lastIdent = null;
+        String name = null;
+
+        while (true) {
+            if (tokenKind == T_EOF) {
+                return;
+            }
+            if (tokenKind == T_JAVADOC) {
+                if (!hasTokens) {
+                    // the javadoc closest to the declaration starts it
+                    trimCaptureToToken();
+                    startLine = tokenLine;
+                }
+            } else {
+                hasTokens = true;
+            }
+
+            if (tokenKind == T_IDENT) {
+                String word = tokenText;
+                if (!sawParen && typeKind < 0) {
+                    if (word.equals("class") || word.equals("interface")) {
+                        typeKind = CLASS;
+                    } else if (word.equals("enum")) {
+                        typeKind = ENUM;
+                    } else if (word.equals("record")) {
+                        nextToken();
+                        if (tokenKind == T_IDENT) {
+                            typeKind = RECORD;
+                        }
+                        pushBackToken();
+                    }
+                }
+                lastIdent = word;
+            } else if (isSymbol('@')) {
+                nextToken();
+                if (tokenKind == T_IDENT && tokenText.equals("interface")) {
+                    typeKind = ANNOTATION;
+                } else {
+                    // annotation: qualified name and optional arguments
+                    while (tokenKind == T_IDENT) {
+                        nextToken();
+                        if (!isSymbol('.')) {
+                            break;
+                        }
+                        nextToken();
+                    }
+                    if (isSymbol('(')) {
+                        skipBalanced('(', ')');
+                    } else {
+                        pushBackToken();
+                    }
+                }
+            } else if (isSymbol('=')) {
+                // field with an initializer
+                capture = null;
+                skipToSemicolon();
+                return;
+            } else if (isSymbol('(')) {
+                if (!sawParen && typeKind < 0) {
+                    sawParen = true;
+                    name = lastIdent;
+                }
+                skipBalanced('(', ')');
+            } else if (isSymbol('<')) {
+                skipBalanced('<', '>');
+            } else if (isSymbol('{')) {
+                if (typeKind >= 0) {
+                    capture = null;
+                    scanBody(typeKind);
+                } else if (sawParen) {
+                    skipBalanced('{', '}');
+                    record(kind, name, startLine, false);
+                } else if (kind == RECORD && lastIdent != null && !lastIdent.equals("static")) {
+                    // compact canonical constructor
+                    skipBalanced('{', '}');
+                    record(kind, lastIdent, startLine, true);
+                } else {
+                    // initializer block
+                    capture = null;
+                    skipBalanced('{', '}');
+                }
+                return;
+            } else if (isSymbol(';')) {
+                if (sawParen && typeKind < 0) {
+                    // abstract, native or interface method
+                    record(kind, name, startLine, false);
+                }
+                return;
+            } else if (isSymbol('}')) {
+                // end of the enclosing body inside an incomplete member
+                pushBackToken();
+                return;
+            }
+            nextToken();
+        }
+    }
+
+    private void record(int kind, String name, int startLine, boolean compactConstructor) {
+        if (kind != TOP && kind != ANNOTATION && name != null && capture != null) {
+            methods.add(new ScannedSource.ScannedMethod(name, capture.toString(), startLine, line, compactConstructor));
+        }
+        capture = null;
+    }
+
+    /** Skips the constants at the start of an enum body, up to ';' (or the closing brace). */
+    private void skipEnumConstants() throws IOException {
+        capture = null;
+        while (tokenKind != T_EOF) {
+            if (isSymbol(';')) {
+                return;
+            }
+            if (isSymbol('}')) {
+                pushBackToken();
+                return;
+            }
+            if (isSymbol('(')) {
+                skipExpression(')');
+            } else if (isSymbol('{')) {
+                // constant with a class body
+                scanBody(CLASS);
+                capture = null;
+            }
+            nextToken();
+        }
+    }
+
+    /** Skips the rest of a field declaration, including array initializers and lambdas. */
+    private void skipToSemicolon() throws IOException {
+        skipExpression(';');
+    }
+
+    /**
+     * Skips tokens up to end at depth 0, which is consumed; an unbalanced closing symbol
+     * ends the expression too and is pushed back. The bodies of anonymous classes created
+     * on the way are scanned for methods.
+     */
+    private void skipExpression(char end) throws IOException {
+        int depth = 0;
+        boolean afterNew = false;
+        while (true) {
+            nextToken();
+            if (tokenKind == T_EOF) {
+                return;
+            }
+            if (depth == 0 && isSymbol(end)) {
+                return;
+            }
+            if (tokenKind == T_IDENT && tokenText.equals("new")) {
+                afterNew = true;
+            } else if (isSymbol('(') && afterNew) {
+                afterNew = false;
+                skipExpression(')');
+                nextToken();
+                if (isSymbol('{')) {
+                    scanBody(CLASS);
+                    capture = null;
+                } else {
+                    pushBackToken();
+                }
+            } else if (isSymbol('(') || isSymbol('{') || isSymbol('[')) {
+                afterNew = false;
+                depth++;
+            } else if (isSymbol(')') || isSymbol('}') || isSymbol(']')) {
+                if (depth == 0) {
+                    pushBackToken();
+                    return;
+                }
+                depth--;
+            }
+        }
+    }
+
+    /** Skips to the symbol closing the one just read. */
+    private void skipBalanced(char open, char close) throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            nextToken();
+            if (tokenKind == T_EOF) {
+                return;
+            }
+            if (isSymbol(open)) {
+                depth++;
+            } else if (isSymbol(close)) {
+                depth--;
+            } else if (open == '<' && (isSymbol(';') || isSymbol('{') || isSymbol('='))) {
+                // a '<' that was not a type argument list
+                pushBackToken();
+                return;
+            }
+        }
+    }
+
+    private boolean isSymbol(char c) {
+        return tokenKind == T_SYMBOL && tokenSymbol == c;
+    }
+
+    /** Drops captured whitespace and comments that precede the current token. */
+    private void trimCaptureToToken() {
+        if (capture != null && tokenStart > 0) {
+            capture.delete(0, tokenStart);
+            tokenStart = 0;
+        }
+    }
+
+    private void pushBackToken() {
+        tokenPushedBack = true;
+    }
+
+    // ---------------------------------------------------------------- lexer
+
+    private void nextToken() throws IOException {
+        if (tokenPushedBack) {
+            tokenPushedBack = false;
+            return;
+        }
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                tokenKind = T_EOF;
+                return;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            tokenLine = line;
+            tokenStart = capture != null ? capture.length() - 1 : 0;
+            if (c == '/') {
+                int n = read();
+                if (n == '/') {
+                    skipLineComment();
+                    continue;
+                }
+                if (n == '*') {
+                    if (skipBlockComment()) {
+                        tokenKind = T_JAVADOC;
+                        return;
+                    }
+                    continue;
+                }
+                unread(n);
+                symbol('/');
+                return;
+            }
+            if (c == '"') {
+                int n = read();
+                if (n == '"') {
+                    int n2 = read();
+                    if (n2 == '"') {
+                        skipTextBlock();
+                    } else {
+                        unread(n2);
+                    }
+                } else {
+                    unread(n);
+                    skipQuoted('"');
+                }
+                tokenKind = T_LITERAL;
+                return;
+            }
+            if (c == '\'') {
+                skipQuoted('\'');
+                tokenKind = T_LITERAL;
+                return;
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                StringBuilder word = new StringBuilder();
+                word.append((char) c);
+                int n;
+                while ((n = read()) != EOF && Character.isJavaIdentifierPart(n)) {
+                    word.append((char) n);
+                }
+                unread(n);
+                tokenKind = T_IDENT;
+                tokenText = word.toString();
+                return;
+            }
+            if (Character.isDigit(c)) {
+                int n;
+                while ((n = read()) != EOF && (Character.isJavaIdentifierPart(n) || n == '.')) {
+                    // number literal
+                }
+                unread(n);
+                tokenKind = T_LITERAL;
+                return;
+            }
+            symbol((char) c);
+            return;
+        }
+    }
+
+    private void symbol(char c) {
+        tokenKind = T_SYMBOL;
+        tokenSymbol = c;
+    }
+
+    private void skipLineComment() throws IOException {
+        int c;
+        while ((c = read()) != EOF && c != '\n') {
+            // skip
+        }
+    }
+
+    /** Skips a block comment whose opening was read; returns true for a javadoc comment. */
+    private boolean skipBlockComment() throws IOException {
+        int c = read();
+        boolean javadoc = false;
+        if (c == '*') {
+            int n = read();
+            javadoc = n != '/';
+            if (!javadoc) {
+                return false; // "/**/"
+            }
+            unread(n);
+        } else {
+            unread(c);
+        }
+        int prev = 0;
+        while ((c = read()) != EOF) {
+            if (prev == '*' && c == '/') {
+                break;
+            }
+            prev = c;
+        }
+        return javadoc;
+    }
+
+    private void skipQuoted(char quote) throws IOException {
+        int c;
+        while ((c = read()) != EOF && c != quote && c != '\n') {
+            if (c == '\\') {
+                read();
+            }
+        }
+    }
+
+    private void skipTextBlock() throws IOException {
+        int quotes = 0;
+        int c;
+        while ((c = read()) != EOF) {
+            if (c == '\\') {
+                read();
+                quotes = 0;
+            } else if (c == '"') {
+                if (++quotes == 3) {
+                    return;
+                }
+            } else {
+                quotes = 0;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        int c = pushed > 0 ? pushback[--pushed] : in.read();
+        if (c == EOF) {
+            return EOF;
+        }
+        if (capture != null) {
+            capture.append((char) c);
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c == EOF) {
+            return;
+        }
+        pushback[pushed++] = c;
+        if (capture != null && capture.length() > 0) {
+            capture.setLength(capture.length() - 1);
+        }
+        if (c == '\n') {
+            line--;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.GitScribe.Service;
+
+import java.util.Arrays;
+
+/**
+ * Start offsets of the lines of a source text, for offset-to-line lookups by binary
+ * search. Lines end at '\n' only, the way JGit's RawText splits them, so line numbers
+ * match the line indices of a blob diff.
+ */
+final class LineIndex {
+
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    private LineIndex(int[] lineStarts, int lineCount) {
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+    }
+
+    static LineIndex of(String source) {
+        int[] starts = new int[Math.max(16, source.length() / 32)];
+        int count = 1;
+        for (int i = source.indexOf('\n'); i >= 0; i = source.indexOf('\n', i + 1)) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = i + 1;
+        }
+        return new LineIndex(starts, count);
+    }
+
+    /** 1-based line of the character at offset; offsets past the end fall on the last line. */
+    int lineOf(int offset) {
+        int i = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        // between two starts: the line that starts before offset
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+}
@@ -1,31 +1,105 @@
-
 package com.GitScribe.Service;
 
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 
-public class MethodDeclarationData {
-    private final MethodDeclaration methodDeclaration;
-    private final String body;
-    private final int startLine;
-    private final int endLine;
+/**
+ * One method of a parsed source: its {@link MethodDescriptor} plus the source it was
+ * found in. All methods of a file version point into the same source string, so the
+ * method text is not copied until {@link #getBody()} is called, and nothing but the
+ * descriptor and the shared source is retained. The JDT node is only built when a
+ * caller asks for it.
+ */
+public final class MethodDeclarationData {
+    private final MethodDescriptor descriptor;
+    private final String source;
+    private MethodDeclaration methodDeclaration;
+    private MethodSnapshot snapshot;
+
+    public MethodDeclarationData(MethodDescriptor descriptor, String source) {
+        this.descriptor = descriptor;
+        this.source = source;
+    }
 
+    /** A method parsed on its own; body is its whole text. */
     public MethodDeclarationData(MethodDeclaration methodDeclaration, String body, int startLine, int endLine) {
+        this.descriptor = MethodDescriptor.ofText(methodDeclaration, body, startLine, endLine);
+        this.source = body;
         this.methodDeclaration = methodDeclaration;
-        this.body = body;
-        this.startLine = startLine;
-        this.endLine = endLine;
     }
 
-    public MethodDeclaration getMethodDeclaration() {
+    public MethodDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    public String getName() {
+        return descriptor.getName();
+    }
+
+    /** Parameters as JDT prints them, same as {@code getMethodDeclaration().parameters().toString()}. */
+    public String getParameterList() {
+        return descriptor.getParameterList();
+    }
+
+    /** Name and parameter types, e.g. "put(K,V)". */
+    public String getSignatureKey() {
+        return descriptor.getSignatureKey();
+    }
+
+    public long getSignatureHash() {
+        return descriptor.getSignatureHash();
+    }
+
+    /** Hash of the method text; equal texts have equal hashes. */
+    public long getBodyHash() {
+        return descriptor.getBodyHash();
+    }
+
+    /**
+     * The JDT node of this method, parsed on first use from the method text alone (or,
+     * if that fails, from the whole source).
+     */
+    public synchronized MethodDeclaration getMethodDeclaration() {
+        if (methodDeclaration == null) {
+            MethodDeclaration parsed = descriptor.isConstructor()
+                    ? JDTParser.parseMethod(getBody(), descriptor.getName())
+                    : JDTParser.parseMethod(getBody());
+            if (parsed == null
+                    || parsed.isConstructor() != descriptor.isConstructor()
+                    || !parsed.getName().getIdentifier().equals(descriptor.getName())
+                    || !parsed.parameters().toString().equals(descriptor.getParameterList())) {
+                parsed = JDTParser.findMethod(source, descriptor.getStartOffset());
+            }
+            methodDeclaration = parsed;
+        }
         return methodDeclaration;
     }
+
+    /** What the change detectors compare about this method; built once, without parsing. */
+    public synchronized MethodSnapshot getSnapshot() {
+        if (snapshot == null) {
+            snapshot = new MethodSnapshot(this);
+        }
+        return snapshot;
+    }
+
+    /** The method text (javadoc and annotations included), cut from the shared source on each call. */
     public String getBody() {
-        return body;
+        int start = descriptor.getStartOffset();
+        return source.substring(start, start + descriptor.getLength());
     }
+
+    /** True if this method's text equals other's, compared in place without copying. */
+    public boolean hasSameBody(MethodDeclarationData other) {
+        return descriptor.getLength() == other.descriptor.getLength()
+                && descriptor.getBodyHash() == other.descriptor.getBodyHash()
+                && source.regionMatches(descriptor.getStartOffset(), other.source,
+                        other.descriptor.getStartOffset(), descriptor.getLength());
+    }
+
     public int getStartLine() {
-        return startLine;
+        return descriptor.getStartLine();
     }
     public int getEndLine() {
-        return endLine;
+        return descriptor.getEndLine();
     }
-}
\ No newline at end of file
+}
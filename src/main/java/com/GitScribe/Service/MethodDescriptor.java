@@ -0,0 +1,180 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AST-free description of one method declaration in a source file, as kept by the
+ * parse cache: name, parameters, modifiers, return type, throws clause, position and
+ * hashes of the signature and of the method text. Holds no JDT nodes, so a cached file costs a few hundred bytes
+ * per method instead of a whole {@code CompilationUnit} graph.
+ *
+ * Names, parameter lists, parameter types and signature keys are interned: the same
+ * method in a thousand versions of a file shares one copy of each, and keys can be
+ * compared cheaply.
+ */
+public final class MethodDescriptor {
+
+    private final String name;
+    private final String parameterList;
+    private final List<String> parameters;
+    private final List<String> parameterTypes;
+    private final String signatureKey;
+    private final long signatureHash;
+    private final int modifiers;
+    private final List<String> modifierList;
+    private final String returnType;
+    private final List<String> thrownTypes;
+    private final boolean constructor;
+    private final int startOffset;
+    private final int length;
+    private final int startLine;
+    private final int endLine;
+    private final long bodyHash;
+
+    public MethodDescriptor(String name, String parameterList, List<String> parameters, List<String> parameterTypes,
+                            int modifiers, List<String> modifierList, String returnType, List<String> thrownTypes,
+                            boolean constructor, int startOffset, int length, int startLine, int endLine,
+                            long bodyHash) {
+        this.name = name.intern();
+        this.parameterList = parameterList.intern();
+        this.parameters = internAll(parameters);
+        this.parameterTypes = internAll(parameterTypes);
+        this.modifierList = internAll(modifierList);
+        this.returnType = returnType.intern();
+        this.thrownTypes = internAll(thrownTypes);
+        this.signatureKey = (this.name + "(" + String.join(",", this.parameterTypes) + ")").intern();
+        this.signatureHash = hash(signatureKey, 0, signatureKey.length());
+        this.modifiers = modifiers;
+        this.constructor = constructor;
+        this.startOffset = startOffset;
+        this.length = length;
+        this.startLine = startLine;
+        this.endLine = endLine;
+        this.bodyHash = bodyHash;
+    }
+
+    /** Describes node, found in source at the given lines. */
+    static MethodDescriptor of(MethodDeclaration node, String source, int startLine, int endLine) {
+        int start = node.getStartPosition();
+        int length = node.getLength();
+        return new MethodDescriptor(node.getName().getIdentifier(), node.parameters().toString(),
+                toStrings(node.parameters()), parameterTypes(node), node.getModifiers(), toStrings(node.modifiers()),
+                returnType(node), toStrings(node.thrownExceptionTypes()), node.isConstructor(),
+                start, length, startLine, endLine, hash(source, start, start + length));
+    }
+
+    /** Describes node parsed on its own from text, which is the whole method. */
+    static MethodDescriptor ofText(MethodDeclaration node, String text, int startLine, int endLine) {
+        return new MethodDescriptor(node.getName().getIdentifier(), node.parameters().toString(),
+                toStrings(node.parameters()), parameterTypes(node), node.getModifiers(), toStrings(node.modifiers()),
+                returnType(node), toStrings(node.thrownExceptionTypes()), node.isConstructor(),
+                0, text.length(), startLine, endLine, hash(text, 0, text.length()));
+    }
+
+    private static List<String> parameterTypes(MethodDeclaration node) {
+        List<String> types = new ArrayList<>();
+        for (Object p : node.parameters()) {
+            SingleVariableDeclaration param = (SingleVariableDeclaration) p;
+            types.add(param.getType().toString() + (param.isVarargs() ? "..." : ""));
+        }
+        return types;
+    }
+
+    private static String returnType(MethodDeclaration node) {
+        return node.getReturnType2() != null ? node.getReturnType2().toString() : "";
+    }
+
+    private static List<String> toStrings(List<?> nodes) {
+        List<String> strings = new ArrayList<>(nodes.size());
+        for (Object n : nodes) {
+            strings.add(n.toString().trim());
+        }
+        return strings;
+    }
+
+    private static List<String> internAll(List<String> strings) {
+        if (strings.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String[] interned = new String[strings.size()];
+        for (int i = 0; i < interned.length; i++) {
+            interned[i] = strings.get(i).intern();
+        }
+        return Collections.unmodifiableList(Arrays.asList(interned));
+    }
+
+    /** 64-bit FNV-1a hash of source[from, to). */
+    static long hash(CharSequence source, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= source.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    public String getName() { return name; }
+
+    /** Parameters as JDT prints them, e.g. "[String a, int... b]"; used to match overloads. */
+    public String getParameterList() { return parameterList; }
+
+    /** Each parameter as JDT prints it, e.g. "int... b". */
+    public List<String> getParameters() { return parameters; }
+
+    public List<String> getParameterTypes() { return parameterTypes; }
+
+    /** Name and parameter types, e.g. "put(K,V)"; parameter names are not part of it. */
+    public String getSignatureKey() { return signatureKey; }
+
+    public long getSignatureHash() { return signatureHash; }
+
+    /** JDT modifier flags ({@link org.eclipse.jdt.core.dom.Modifier}). */
+    public int getModifiers() { return modifiers; }
+
+    /** Modifiers and annotations in source order, as JDT prints them (e.g. "@Override", "public"). */
+    public List<String> getModifierList() { return modifierList; }
+
+    /** Return type as JDT prints it, "" for constructors. */
+    public String getReturnType() { return returnType; }
+
+    /** Types in the throws clause, in source order. */
+    public List<String> getThrownTypes() { return thrownTypes; }
+
+    public boolean isConstructor() { return constructor; }
+
+    public int getStartOffset() { return startOffset; }
+    public int getLength() { return length; }
+    public int getStartLine() { return startLine; }
+    public int getEndLine() { return endLine; }
+
+    /** Hash of the method text (javadoc, annotations, signature and body). */
+    public long getBodyHash() { return bodyHash; }
+
+    /**
+     * Rough heap footprint, used as the entry weight in the parse cache. Interned strings
+     * are counted as if they were not shared, which overestimates repeated versions.
+     */
+    long weight() {
+        long w = 112 + 2L * (name.length() + parameterList.length() + signatureKey.length());
+        w += 2L * returnType.length();
+        for (String t : parameterTypes) {
+            w += 48 + 2L * t.length();
+        }
+        for (String p : parameters) {
+            w += 48 + 2L * p.length();
+        }
+        for (String m : modifierList) {
+            w += 48 + 2L * m.length();
+        }
+        for (String t : thrownTypes) {
+            w += 48 + 2L * t.length();
+        }
+        return w;
+    }
+}
@@ -0,0 +1,113 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+
+/**
+ * 64-bit fingerprints of a method's text, taken over JDT's token stream in one scan:
+ * <ul>
+ *   <li>text: the exact characters;</li>
+ *   <li>tokens: code tokens and comments, without whitespace (whitespace inside a
+ *       comment is ignored too, so re-wrapping a comment is a layout change);</li>
+ *   <li>code: code tokens only.</li>
+ * </ul>
+ * Equal code fingerprints mean no detector can find a change; the other two tell a
+ * comment edit from a pure layout change. Tokens are hashed as written (case matters)
+ * and separated, so "a b" and "ab" differ.
+ */
+public final class MethodFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long textHash;
+    private final long tokenHash;
+    private final long codeHash;
+
+    private MethodFingerprint(long textHash, long tokenHash, long codeHash) {
+        this.textHash = textHash;
+        this.tokenHash = tokenHash;
+        this.codeHash = codeHash;
+    }
+
+    /** Fingerprints of text, scanned once. */
+    public static MethodFingerprint of(String text) {
+        return of(text, MethodDescriptor.hash(text, 0, text.length()));
+    }
+
+    /** Same as {@link #of(String)} with the text hash already known. */
+    static MethodFingerprint of(String text, long textHash) {
+        char[] source = text.toCharArray();
+        IScanner scanner = ToolFactory.createScanner(true, false, false, false);
+        scanner.setSource(source);
+        long tokens = FNV_OFFSET;
+        long code = FNV_OFFSET;
+        int token;
+        try {
+            while ((token = scanner.getNextToken()) != ITerminalSymbols.TokenNameEOF) {
+                int start = scanner.getCurrentTokenStartPosition();
+                int end = scanner.getCurrentTokenEndPosition() + 1;
+                if (isComment(token)) {
+                    tokens = hashSkippingWhitespace(tokens, source, start, end);
+                } else {
+                    tokens = hash(tokens, source, start, end);
+                    code = hash(code, source, start, end);
+                }
+            }
+        } catch (InvalidInputException e) {
+            // unterminated literal or comment: the rest counts as one code token
+            int start = scanner.getCurrentTokenStartPosition();
+            tokens = hash(tokens, source, start, source.length);
+            code = hash(code, source, start, source.length);
+        }
+        return new MethodFingerprint(textHash, tokens, code);
+    }
+
+    private static boolean isComment(int token) {
+        return token == ITerminalSymbols.TokenNameCOMMENT_LINE
+                || token == ITerminalSymbols.TokenNameCOMMENT_BLOCK
+                || token == ITerminalSymbols.TokenNameCOMMENT_JAVADOC;
+    }
+
+    // FNV-1a over source[from, to), then a separator
+    private static long hash(long h, char[] source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            h ^= source[i];
+            h *= FNV_PRIME;
+        }
+        h ^= 0xffff;
+        return h * FNV_PRIME;
+    }
+
+    private static long hashSkippingWhitespace(long h, char[] source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(source[i])) {
+                h ^= source[i];
+                h *= FNV_PRIME;
+            }
+        }
+        h ^= 0xffff;
+        return h * FNV_PRIME;
+    }
+
+    public long getTextHash() { return textHash; }
+    public long getTokenHash() { return tokenHash; }
+    public long getCodeHash() { return codeHash; }
+
+    /** Same code tokens; comments and layout may differ. */
+    public boolean hasSameCode(MethodFingerprint other) {
+        return codeHash == other.codeHash;
+    }
+
+    /** Same code tokens and comments; only whitespace may differ. */
+    public boolean hasSameTokens(MethodFingerprint other) {
+        return tokenHash == other.tokenHash && codeHash == other.codeHash;
+    }
+
+    /** Same text, by hash. */
+    public boolean hasSameText(MethodFingerprint other) {
+        return textHash == other.textHash;
+    }
+}
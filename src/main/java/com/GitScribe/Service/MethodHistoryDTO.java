@@ -7,6 +7,7 @@ public class MethodHistoryDTO {
     private String methodName;
     private String methodSignature;
     private List<CommitInfo> commitHistory;
+    private List<OversizedFile> oversizedFiles;
 
     public String getMethodName() { return methodName; }
     public void setMethodName(String methodName) { this.methodName = methodName; }
@@ -16,4 +17,8 @@ public class MethodHistoryDTO {
 
     public List<CommitInfo> getCommitHistory() { return commitHistory; }
     public void setCommitHistory(List<CommitInfo> commitHistory) { this.commitHistory = commitHistory; }
+
+    /** Versions of the file that exceeded the parse limit while this history was built. */
+    public List<OversizedFile> getOversizedFiles() { return oversizedFiles; }
+    public void setOversizedFiles(List<OversizedFile> oversizedFiles) { this.oversizedFiles = oversizedFiles; }
 }
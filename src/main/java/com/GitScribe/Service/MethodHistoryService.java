@@ -1,159 +1,540 @@
 package com.GitScribe.Service;
 
 import com.GitScribe.Util.CommitInfo;
+import com.GitScribe.Util.BodyEditStats;
 import com.GitScribe.Changes.FileRenameDetector;
 import com.GitScribe.Changes.ParameterChangeDetector;
 import com.GitScribe.Changes.ModifierChangeDetector;
 import com.GitScribe.Changes.BodyChangeDetector;
+import com.GitScribe.Changes.BodyTokenDiff;
 import com.GitScribe.Changes.ReturnTypeChangeDetector;
 import com.GitScribe.Changes.ExceptionsChangeDetector;
+import com.GitScribe.Changes.FormatChangeDetector;
 
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class MethodHistoryService {
 
+    // shiftUntouched result for a range an edit reaches
+    private static final int TOUCHED = Integer.MIN_VALUE;
+
     @Autowired
     private GitHubService gitHubService;
 
+    @Autowired
+    private RepositorySessionRegistry sessionRegistry;
+
+    /**
+     * How each method's history is searched for change points: "linear" compares every
+     * commit pair, "bisect" looks the method up at selected commits and only compares the
+     * pairs inside intervals whose ends differ (see {@link Bisection}).
+     */
+    @Value("${gitscribe.history.search:linear}")
+    private String historySearch = "linear";
+
+    // Bisection counters, see getSearchStats()
+    private final AtomicLong methodsSearched = new AtomicLong();
+    private final AtomicLong versionsInHistory = new AtomicLong();
+    private final AtomicLong versionsProbed = new AtomicLong();
+    private final AtomicLong pairsCompared = new AtomicLong();
+
     public List<MethodHistoryDTO> getAllMethodData(String repoDirPath, String filePath) throws Exception {
-        gitHubService.setLocalRepoPath(repoDirPath);
+        try (RepositorySession session = sessionRegistry.acquire(repoDirPath)) {
+            return getAllMethodData(session, filePath);
+        }
+    }
 
+    /**
+     * History of the one method of the file with the given name and parameter list, as
+     * {@link #getAllMethodData} builds it; null if the latest version has no such method.
+     */
+    MethodHistoryDTO getMethodHistory(RepositorySession session, String filePath, String methodName,
+                                      String methodParams) throws IOException {
+        List<MethodHistoryDTO> histories = getMethodData(session, filePath, methodName, methodParams);
+        return histories.isEmpty() ? null : histories.get(0);
+    }
+
+    private List<MethodHistoryDTO> getAllMethodData(RepositorySession session, String filePath) throws IOException {
+        return getMethodData(session, filePath, null, null);
+    }
+
+    /** Histories of the methods of the file, or only of the one named methodName(methodParams) if methodName is set. */
+    private List<MethodHistoryDTO> getMethodData(RepositorySession session, String filePath, String onlyName,
+                                                 String onlyParams) throws IOException {
+        // versions over the parse limit, reported with every method's history
+        Map<String, OversizedFile> oversized = new LinkedHashMap<>();
         // load latest file
-        String latestContent = gitHubService.getFileContent(filePath);
-        if (latestContent == null || latestContent.isEmpty()) {
-            throw new IOException("File content empty for: " + filePath);
+        List<MethodDeclarationData> methods = loadLatestMethods(session, filePath, oversized);
+        if (onlyName != null) {
+            List<MethodDeclarationData> selected = new ArrayList<>();
+            for (MethodDeclarationData md : methods) {
+                if (md.getName().equals(onlyName) && md.getParameterList().equals(onlyParams)) {
+                    selected.add(md);
+                    break;
+                }
+            }
+            methods = selected;
         }
-        List<MethodDeclarationData> methods = JDTParser.getMethods(latestContent);
-        List<RevCommit> commits = gitHubService.getCommitHistory(filePath);
+        FileHistory fileHistory = gitHubService.getFileHistory(session, filePath);
+        List<RevCommit> commits = fileHistory.getCommits();
+        // blob id of the file at every commit, resolved in one pass; contents are
+        // loaded lazily, once per distinct blob, and shared by all methods
+        List<ObjectId> blobIds = gitHubService.resolveBlobIds(session, fileHistory);
+        // with gitscribe.parser.threads set, every distinct version is parsed up front, in parallel
+        gitHubService.parseVersions(session, blobIds);
+        FileVersion[] versions = new FileVersion[commits.size()];
+        List<OversizedFile> oversizedFiles = new ArrayList<>();
+        // per newer commit of a pair in which some method disappeared
+        Map<RevCommit, MethodMoveIndex> moveIndexes = new HashMap<>();
+
+        boolean bisect = "bisect".equalsIgnoreCase(historySearch);
+        long probedBefore = versionsProbed.get();
+        long comparedBefore = pairsCompared.get();
 
         List<MethodHistoryDTO> results = new ArrayList<>();
         for (MethodDeclarationData md : methods) {
-            String methodName = md.getMethodDeclaration().getName().getIdentifier();
-            String methodParams = md.getMethodDeclaration().parameters().toString();
-            String oldDecl = md.getMethodDeclaration().toString();
-            String oldBody = md.getBody();
+            String methodName = md.getName();
+            String methodParams = md.getParameterList();
+            // the method as last seen, null once it is gone; every detector reads the
+            // snapshots taken from the file-level parse instead of re-parsing the text
+            MethodSnapshot baseline = md.getSnapshot();
+            // full-text version the baseline's lines are in, and its 0-based line range
+            // [baselineStart, baselineEnd); null when the lines are not known
+            FileVersion baselineVersion = null;
+            int baselineStart = 0;
+            int baselineEnd = 0;
 
             MethodHistoryDTO dto = new MethodHistoryDTO();
             dto.setMethodName(methodName);
             List<CommitInfo> history = new ArrayList<>();
-            String currentPath = filePath;
+            // set once the method is detected in another file; until then the walk's path is used
+            String currentPath = null;
+            // with bisection, the pairs that may hold a change of the method; null compares all
+            boolean[] pairs = bisect
+                    ? new Bisection(session, versions, fileHistory, blobIds, oversized, methodName, methodParams).search()
+                    : null;
 
             for (int i = 0; i < commits.size() - 1; i++) {
                 RevCommit older = commits.get(i);
                 RevCommit newer = commits.get(i + 1);
-                // get modified files for this commit-pair
-                List<String> modifiedFiles = gitHubService.getModifiedFilePathsBetween(older, newer);
-                // load file before/after
-                String oldContent = gitHubService.getFileContentAtCommit(currentPath, older.getName());
-                String newContent = gitHubService.getFileContentAtCommit(currentPath, newer.getName());
-
-                // extract old and new blocks
-                String oldBlock = extractMethodBlockAccurate(oldContent, methodName, methodParams);
-                String newBlock = extractMethodBlockAccurate(newContent, methodName, methodParams);
-
-                // compute new declaration
-                String newDecl = "";
-                for (MethodDeclarationData cand : JDTParser.getMethods(newContent)) {
-                    if (cand.getMethodDeclaration().getName().getIdentifier().equals(methodName)
-                        && cand.getMethodDeclaration().parameters().toString().equals(methodParams)) {
-                        newDecl = cand.getMethodDeclaration().toString();
-                        break;
+                if (pairs != null && currentPath == null && !pairs[i]) {
+                    // the method's text is the same at both ends of an interval holding this pair
+                    continue;
+                }
+                if (currentPath == null && i > 0 && blobIds.get(i).equals(blobIds.get(i + 1))) {
+                    // same file version (e.g. a pure rename): every detector would compare
+                    // identical inputs and the baseline already reflects this version
+                    continue;
+                }
+                // load file before/after, following renames of the file itself
+                FileVersion oldVersion;
+                FileVersion newVersion;
+                if (currentPath == null) {
+                    oldVersion = loadVersion(session, versions, fileHistory, blobIds, i, oversized);
+                    newVersion = loadVersion(session, versions, fileHistory, blobIds, i + 1, oversized);
+                } else {
+                    oldVersion = loadVersionAt(session, currentPath, older, oversized);
+                    newVersion = loadVersionAt(session, currentPath, newer, oversized);
+                }
+                if (oldVersion.isSkipped() || newVersion.isSkipped()) {
+                    // an oversized version was left out; it is listed in oversizedFiles
+                    continue;
+                }
+                if (baseline != null && oldVersion == baselineVersion && newVersion.hasText()) {
+                    // no edit of this pair reaches the method's lines: its text is unchanged,
+                    // so it is carried forward without lookup or comparison
+                    int shift = shiftUntouched(newVersion, newVersion.editsFrom(oldVersion), baselineStart, baselineEnd, methodName);
+                    if (shift != TOUCHED) {
+                        JDTParser.recordUntouchedMethod();
+                        baselineVersion = newVersion;
+                        baselineStart += shift;
+                        baselineEnd += shift;
+                        continue;
                     }
                 }
 
+                // old and new versions of the method, null where it does not exist
+                MethodSnapshot oldSnap = extractMethodBlockAccurate(oldVersion, methodName, methodParams);
+                MethodSnapshot newSnap = extractMethodBlockAccurate(newVersion, methodName, methodParams);
+
                 // 1) only detect rename if method no longer exists by declaration
-                if (newDecl.isEmpty()) {
-                    List<String> renameChanges = FileRenameDetector.detectFileRenameChangeTypes(
-                        oldDecl, oldBody, modifiedFiles, gitHubService);
-                    if (!renameChanges.isEmpty()) {
-                        CommitInfo ci = new CommitInfo();
-                        ci.setCommitId(newer.getName());
-                        ci.setAuthor(newer.getAuthorIdent().getName());
-                        ci.setAuthorEmail(newer.getAuthorIdent().getEmailAddress());
-                        ci.setDate(newer.getAuthorIdent().getWhen().toString());
-                        ci.setMessage(newer.getFullMessage());
-                        ci.setChangeTypes(renameChanges);
-                        history.add(ci);
+                if (newSnap == null && baseline != null) {
+                    // methods of the files this commit-pair changed, indexed once and
+                    // searched by every method that disappears in it
+                    MethodMoveIndex moveIndex = moveIndexes.get(newer);
+                    if (moveIndex == null) {
+                        CommitChangeSet changeSet = gitHubService.getChangeSet(session, older, newer);
+                        moveIndex = MethodMoveIndex.build(changeSet, session, gitHubService);
+                        moveIndexes.put(newer, moveIndex);
+                    }
+                    String oldDecl = baseline.getDeclaration();
+                    String oldBody = baseline.getText();
+                    // one ranking and verification of the candidates gives both the path and the change
+                    String newPath = FileRenameDetector.detectFileRename(oldDecl, oldBody, moveIndex);
+                    if (newPath != null) {
+                        history.add(commitInfo(newer, FileRenameDetector.fileRenameChangeTypes(newPath)));
                         // update path and skip
-                        String newPath = FileRenameDetector.detectFileRename(
-                            oldDecl, oldBody, modifiedFiles, gitHubService);
                         currentPath = newPath;
                         // reset baseline for next iterations
-                        oldDecl = newDecl;
-                        oldBody = newBlock;
+                        baseline = newSnap;
+                        baselineVersion = null;
                         continue;
                     }
                 }
 
-                // Gather other change types
-                List<String> changes = new ArrayList<>();
-                // parameter changes
-                changes.addAll(ParameterChangeDetector.detectParameterChanges(oldDecl, newDecl));
-                // return type changes
-                changes.addAll(ReturnTypeChangeDetector.detectReturnTypeChange(oldBlock, newBlock));
-                // modifier changes
-                changes.addAll(ModifierChangeDetector.detectModifierChanges(oldBlock, newBlock));
-                // body changes
-                changes.addAll(BodyChangeDetector.detectBodyChange(oldBlock, newBlock));
-                // exceptions (throws) changes
-                changes.addAll(ExceptionsChangeDetector.detectExceptionsChange(oldDecl, newDecl));
-                // parameter metadata changes
-              
-
-                // introduced or deleted
-                if ((oldBody == null || oldBody.isEmpty()) && (newBlock != null && !newBlock.isEmpty())) {
-                    changes.add("Introduced");
-                }
-                if ((oldBody != null && !oldBody.isEmpty()) && (newBlock == null || newBlock.isEmpty())) {
-                    changes.add("Deleted");
-                }
-
-                // multi-change flag
-                if (changes.size() > 1) {
-                    changes.add("MultiChange");
+                if (pairs != null) {
+                    pairsCompared.incrementAndGet();
                 }
-
-                // decide if recordable
-                boolean isAddition = (oldBlock == null || oldBlock.isEmpty()) && (newBlock != null && !newBlock.isEmpty());
-                boolean isModification = (oldBlock != null && !oldBlock.isEmpty()) && !changes.isEmpty();
-                if (isAddition || isModification) {
-                    CommitInfo ci = new CommitInfo();
-                    ci.setCommitId(newer.getName());
-                    ci.setAuthor(newer.getAuthorIdent().getName());
-                    ci.setAuthorEmail(newer.getAuthorIdent().getEmailAddress());
-                    ci.setDate(newer.getAuthorIdent().getWhen().toString());
-                    ci.setMessage(newer.getFullMessage());
-                    ci.setChangeTypes(changes);
-                    history.add(ci);
+                // one token diff per pair where the code differs: it decides the body
+                // change and sizes the history entry
+                BodyEditStats bodyEdits = bodyEdits(baseline, oldSnap, newSnap);
+                List<String> changes = detectChanges(baseline, oldSnap, newSnap, bodyEdits);
+                if (isRecorded(oldSnap, newSnap, changes)) {
+                    history.add(commitInfo(newer, changes, bodyEdits));
                 }
 
                 // update baseline
-                oldDecl = newDecl;
-                oldBody = newBlock;
+                baseline = newSnap;
+                baselineVersion = newSnap != null && newVersion.hasText() ? newVersion : null;
+                if (baselineVersion != null) {
+                    baselineStart = newSnap.getStartLine() - 1;
+                    baselineEnd = newSnap.getEndLine();
+                }
             }
 
             dto.setCommitHistory(history);
+            dto.setOversizedFiles(oversizedFiles);
             results.add(dto);
         }
+        oversizedFiles.addAll(oversized.values());
+        if (bisect && !methods.isEmpty()) {
+            System.out.println("MethodHistoryService: bisected " + methods.size() + " methods over "
+                    + commits.size() + " versions of " + filePath + ", " + (versionsProbed.get() - probedBefore)
+                    + " lookups and " + (pairsCompared.get() - comparedBefore) + " pairs compared");
+        }
         return results;
     }
 
-    private String extractMethodBlockAccurate(String fileContent, String methodName, String methodParams) {
-        for (MethodDeclarationData m : JDTParser.getMethods(fileContent)) {
-            String name = m.getMethodDeclaration().getName().getIdentifier();
-            String params = m.getMethodDeclaration().parameters().toString();
-            if (name.equals(methodName) && params.equals(methodParams)) {
-                return m.getBody();
+    /** Counters of the bisection search, over all requests made with gitscribe.history.search=bisect. */
+    public HistorySearchStats getSearchStats() {
+        HistorySearchStats stats = new HistorySearchStats();
+        stats.setMethodsSearched(methodsSearched.get());
+        stats.setVersionsInHistory(versionsInHistory.get());
+        stats.setVersionsProbed(versionsProbed.get());
+        stats.setPairsCompared(pairsCompared.get());
+        return stats;
+    }
+
+    /**
+     * Change-point search over one method's file history. The method is looked up at
+     * both ends of an interval of versions; if its text is the same at both, the interval
+     * is taken to hold no change and none of its pairs is compared, otherwise the interval
+     * is halved. With k changes in n versions that is O(k log n) lookups instead of n. The
+     * text is compared, not the code tokens, since layout and comment edits are listed
+     * too; a change reverted within an interval whose ends are equal is not seen. Absence
+     * at both ends says nothing about the versions between them (the method may have been
+     * added and deleted again), so such an interval is halved down to single pairs, of
+     * which only those with the method absent at both ends are skipped. The first pair is
+     * always compared (its baseline is the latest version, not the older one), and so is
+     * every pair next to a skipped oversized version the search looks up. Moves to another
+     * file are found on the compared pairs, and the history after one is walked linearly.
+     */
+    private class Bisection {
+        private final RepositorySession session;
+        private final FileVersion[] versions;
+        private final FileHistory fileHistory;
+        private final List<ObjectId> blobIds;
+        private final Map<String, OversizedFile> oversized;
+        private final String methodName;
+        private final String methodParams;
+        // the method at each version looked up: ABSENT_METHOD, SKIPPED_METHOD or its snapshot
+        private final Object[] probes;
+        private final boolean[] pairs;
+
+        Bisection(RepositorySession session, FileVersion[] versions, FileHistory fileHistory, List<ObjectId> blobIds,
+                  Map<String, OversizedFile> oversized, String methodName, String methodParams) {
+            this.session = session;
+            this.versions = versions;
+            this.fileHistory = fileHistory;
+            this.blobIds = blobIds;
+            this.oversized = oversized;
+            this.methodName = methodName;
+            this.methodParams = methodParams;
+            this.probes = new Object[blobIds.size()];
+            this.pairs = new boolean[Math.max(0, blobIds.size() - 1)];
+        }
+
+        /** pairs[i] is true if commit pair (i, i+1) has to be compared. */
+        boolean[] search() throws IOException {
+            int last = blobIds.size() - 1;
+            if (last >= 1) {
+                pairs[0] = true;
+                bisect(1, last);
+            }
+            methodsSearched.incrementAndGet();
+            versionsInHistory.addAndGet(blobIds.size());
+            return pairs;
+        }
+
+        private void bisect(int lo, int hi) throws IOException {
+            if (hi <= lo || sameMethod(lo, hi)) {
+                return;
+            }
+            if (hi - lo == 1) {
+                pairs[lo] = true;
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            bisect(lo, mid);
+            bisect(mid, hi);
+        }
+
+        private boolean sameMethod(int a, int b) throws IOException {
+            if (blobIds.get(a).equals(blobIds.get(b))) {
+                return true;
+            }
+            Object x = probe(a);
+            Object y = probe(b);
+            if (x == SKIPPED_METHOD || y == SKIPPED_METHOD) {
+                return false;
+            }
+            if (x == ABSENT_METHOD || y == ABSENT_METHOD) {
+                return x == y && b - a == 1;
+            }
+            return ((MethodSnapshot) x).hasSameText((MethodSnapshot) y);
+        }
+
+        private Object probe(int i) throws IOException {
+            if (probes[i] == null) {
+                versionsProbed.incrementAndGet();
+                FileVersion version = loadVersion(session, versions, fileHistory, blobIds, i, oversized);
+                if (version.isSkipped()) {
+                    probes[i] = SKIPPED_METHOD;
+                } else {
+                    MethodSnapshot snap = extractMethodBlockAccurate(version, methodName, methodParams);
+                    probes[i] = snap != null ? snap : ABSENT_METHOD;
+                }
+            }
+            return probes[i];
+        }
+    }
+
+    // Bisection probe results other than a method snapshot
+    private static final Object ABSENT_METHOD = new Object();
+    private static final Object SKIPPED_METHOD = new Object();
+
+    /**
+     * Methods of the latest version of the file. An oversized latest version is scanned
+     * lexically and each method parsed on its own; in skip mode it fails the request,
+     * since there would be no methods to follow.
+     */
+    private List<MethodDeclarationData> loadLatestMethods(RepositorySession session, String filePath,
+                                                          Map<String, OversizedFile> oversized) throws IOException {
+        try {
+            String latestContent = gitHubService.getFileContent(session, filePath);
+            if (latestContent == null || latestContent.isEmpty()) {
+                throw new IOException("File content empty for: " + filePath);
+            }
+            return JDTParser.getMethods(latestContent);
+        } catch (OversizedBlobException e) {
+            if (!gitHubService.isScanOversized()) {
+                throw e;
+            }
+            reportOversized(oversized, filePath, null, e.getSize());
+            ScannedSource scanned = gitHubService.scanFileContent(session, filePath);
+            List<MethodDeclarationData> methods = new ArrayList<>();
+            for (int i = 0; i < scanned.getMethods().size(); i++) {
+                MethodDeclarationData md = scanned.parse(i);
+                if (md != null) {
+                    methods.add(md);
+                }
+            }
+            return methods;
+        }
+    }
+
+    /** History entry i, reusing the previous entry when the blob id is unchanged. */
+    private FileVersion loadVersion(RepositorySession session, FileVersion[] versions, FileHistory fileHistory,
+                                    List<ObjectId> blobIds, int i, Map<String, OversizedFile> oversized) throws IOException {
+        if (versions[i] == null) {
+            ObjectId blobId = blobIds.get(i);
+            if (i > 0 && versions[i - 1] != null && blobId.equals(blobIds.get(i - 1))) {
+                versions[i] = versions[i - 1];
+            } else {
+                versions[i] = loadBlob(session, blobId, fileHistory.getPath(i), fileHistory.getCommit(i), oversized);
+            }
+        }
+        return versions[i];
+    }
+
+    /** Version of filePath at commit, for files the method moved to. */
+    private FileVersion loadVersionAt(RepositorySession session, String filePath, RevCommit commit,
+                                      Map<String, OversizedFile> oversized) throws IOException {
+        ObjectId blobId = gitHubService.getBlobIdAtCommit(session, filePath, commit.getName());
+        return loadBlob(session, blobId, filePath, commit, oversized);
+    }
+
+    private FileVersion loadBlob(RepositorySession session, ObjectId blobId, String filePath, RevCommit commit,
+                                 Map<String, OversizedFile> oversized) throws IOException {
+        if (ObjectId.zeroId().equals(blobId)) {
+            return FileVersion.ABSENT;
+        }
+        try {
+            return FileVersion.of(gitHubService.getBlobContent(session, blobId), blobId);
+        } catch (OversizedBlobException e) {
+            reportOversized(oversized, filePath, commit.getName(), e.getSize());
+            return gitHubService.isScanOversized() ? FileVersion.scanned(gitHubService.scanBlob(session, blobId)) : FileVersion.SKIPPED;
+        }
+    }
+
+    private void reportOversized(Map<String, OversizedFile> oversized, String filePath, String commitId, long size) {
+        String key = filePath + "@" + commitId;
+        if (!oversized.containsKey(key)) {
+            OversizedFile file = new OversizedFile();
+            file.setPath(filePath);
+            file.setCommitId(commitId);
+            file.setSizeBytes(size);
+            file.setHandling(gitHubService.isScanOversized() ? OversizedFile.SCANNED : OversizedFile.SKIPPED);
+            oversized.put(key, file);
+            System.out.println("MethodHistoryService: " + filePath + (commitId != null ? " @ " + commitId : "")
+                    + " is " + size + " bytes, over the parse limit; " + file.getHandling());
+        }
+    }
+
+    /**
+     * Change types of one commit pair for a method: baseline is the method as last seen,
+     * oldSnap and newSnap its versions in the older and newer commit, null where absent,
+     * and bodyEdits the pair's token diff from {@link #bodyEdits}.
+     */
+    static List<String> detectChanges(MethodSnapshot baseline, MethodSnapshot oldSnap, MethodSnapshot newSnap,
+                                      BodyEditStats bodyEdits) {
+        List<String> changes = new ArrayList<>();
+        if (sameCode(baseline, oldSnap, newSnap)) {
+            // equal code fingerprints: no detector can find a change, at most
+            // comments or layout differ
+            if (oldSnap.hasSameText(newSnap)) {
+                JDTParser.recordUnchangedMethod();
+            }
+            changes.addAll(FormatChangeDetector.detectFormatChanges(oldSnap, newSnap));
+        } else {
+            // parameter changes
+            changes.addAll(ParameterChangeDetector.detectParameterChanges(baseline, newSnap));
+            // return type changes
+            changes.addAll(ReturnTypeChangeDetector.detectReturnTypeChange(oldSnap, newSnap));
+            // modifier changes
+            changes.addAll(ModifierChangeDetector.detectModifierChanges(oldSnap, newSnap));
+            // body changes
+            changes.addAll(BodyChangeDetector.detectBodyChange(oldSnap, newSnap, bodyEdits));
+            // exceptions (throws) changes
+            changes.addAll(ExceptionsChangeDetector.detectExceptionsChange(baseline, newSnap));
+        }
+
+        // introduced or deleted
+        if (baseline == null && newSnap != null) {
+            changes.add("Introduced");
+        }
+        if (baseline != null && newSnap == null) {
+            changes.add("Deleted");
+        }
+
+        // multi-change flag
+        if (changes.size() > 1) {
+            changes.add("MultiChange");
+        }
+        return changes;
+    }
+
+    /** True if a commit pair with these changes is listed in the method's history: an addition or a modification. */
+    static boolean isRecorded(MethodSnapshot oldSnap, MethodSnapshot newSnap, List<String> changes) {
+        boolean isAddition = oldSnap == null && newSnap != null;
+        boolean isModification = oldSnap != null && !changes.isEmpty();
+        return isAddition || isModification;
+    }
+
+    /** History entry for the newer commit of a pair. */
+    static CommitInfo commitInfo(RevCommit newer, List<String> changes) {
+        CommitInfo ci = new CommitInfo();
+        ci.setCommitId(newer.getName());
+        ci.setAuthor(newer.getAuthorIdent().getName());
+        ci.setAuthorEmail(newer.getAuthorIdent().getEmailAddress());
+        ci.setDate(newer.getAuthorIdent().getWhen().toString());
+        ci.setMessage(newer.getFullMessage());
+        ci.setChangeTypes(changes);
+        return ci;
+    }
+
+    /** History entry for a commit pair, with the token-level size of its body edit; null bodyEdits means none. */
+    static CommitInfo commitInfo(RevCommit newer, List<String> changes, BodyEditStats bodyEdits) {
+        CommitInfo ci = commitInfo(newer, changes);
+        ci.setBodyEdits(bodyEdits);
+        return ci;
+    }
+
+    /**
+     * Token diff of the bodies of oldSnap and newSnap, run once per commit pair; null if
+     * there are no body edits: neither exists, or all three versions have the same code.
+     */
+    static BodyEditStats bodyEdits(MethodSnapshot baseline, MethodSnapshot oldSnap, MethodSnapshot newSnap) {
+        if ((oldSnap == null && newSnap == null) || sameCode(baseline, oldSnap, newSnap)) {
+            return null;
+        }
+        return BodyTokenDiff.compare(oldSnap, newSnap);
+    }
+
+    /** True if the method exists in all three versions with the same code tokens. */
+    private static boolean sameCode(MethodSnapshot baseline, MethodSnapshot oldSnap, MethodSnapshot newSnap) {
+        return oldSnap != null && newSnap != null && baseline != null
+                && sameCode(oldSnap, newSnap) && sameCode(baseline, newSnap);
+    }
+
+    /** True if a and b have the same code tokens; identical text is recognised without scanning. */
+    private static boolean sameCode(MethodSnapshot a, MethodSnapshot b) {
+        return a == b || a.hasSameText(b) || a.hasSameCode(b);
+    }
+
+    /**
+     * How far the 0-based line range [start, end) of a method moves under edits, or
+     * TOUCHED if an edit changes a line in it, inserts lines inside it, ends right before
+     * it (which can attach a javadoc to the method), or adds lines above it that mention
+     * its name (an earlier declaration with the same signature would be found first).
+     */
+    private static int shiftUntouched(FileVersion newVersion, EditList edits, int start, int end, String methodName) {
+        int shift = 0;
+        for (Edit edit : edits) {
+            if (edit.getBeginA() >= end) {
+                // edits are in line order
+                break;
+            }
+            if (edit.getEndA() >= start || newVersion.linesContain(edit.getBeginB(), edit.getEndB(), methodName)) {
+                return TOUCHED;
+            }
+            shift += edit.getLengthB() - edit.getLengthA();
+        }
+        return shift;
+    }
+
+    static MethodSnapshot extractMethodBlockAccurate(FileVersion version, String methodName, String methodParams) {
+        for (MethodDeclarationData m : version.getMethodsNamed(methodName)) {
+            if (m.getParameterList().equals(methodParams)) {
+                return m.getSnapshot();
             }
         }
-        return "";
+        return null;
     }
 }
 
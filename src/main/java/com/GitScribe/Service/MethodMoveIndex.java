@@ -0,0 +1,238 @@
+package com.GitScribe.Service;
+
+import com.GitScribe.Util.ComprehensiveMethodChangeUtil;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The methods of a commit pair's changed .java files (new side), indexed for the
+ * search of a method that disappeared in that pair. Each changed file is read and
+ * parsed once, when the index is built, instead of once per disappeared method.
+ * A method only moves to a candidate with the same signature text, so candidates are
+ * bucketed by signature and found in one lookup. In a bucket of more than
+ * {@link #MAX_CANDIDATES} methods (e.g. toString() in a refactoring that touches
+ * hundreds of classes) the candidates are ranked by a MinHash estimate of the Jaccard
+ * similarity of their body shingles, and only the best are returned for exact checks.
+ */
+public final class MethodMoveIndex {
+
+    /** Most candidates returned for a signature; larger buckets are cut by MinHash rank. */
+    public static final int MAX_CANDIDATES = 8;
+
+    // MinHash functions per sketch, and characters per shingle (whitespace left out)
+    private static final int SKETCH_SIZE = 32;
+    private static final int SHINGLE_LENGTH = 5;
+    private static final long[] SEEDS = new long[SKETCH_SIZE];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < SKETCH_SIZE; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final Map<String, List<Candidate>> bySignature = new HashMap<>();
+    private int methodCount;
+
+    private MethodMoveIndex() {
+    }
+
+    /**
+     * Indexes every method in the new version of the changed .java files of changeSet,
+     * in change order. Files over the parse limit are scanned lexically instead of
+     * parsed, or skipped in skip mode; unreadable files are skipped.
+     */
+    public static MethodMoveIndex build(CommitChangeSet changeSet, RepositorySession session, GitHubService gitHubService) {
+        MethodMoveIndex index = new MethodMoveIndex();
+        for (FileChange change : changeSet.getChanges()) {
+            String filePath = change.getNewPath();
+            // only inspect Java files that exist after the change
+            if (!change.hasNewSide() || !filePath.endsWith(".java")) {
+                continue;
+            }
+            try {
+                for (String block : getMethodBlocks(session, gitHubService, change)) {
+                    index.add(filePath, block);
+                }
+            } catch (IOException e) {
+                // skip unreadable files
+            }
+        }
+        return index;
+    }
+
+    private void add(String filePath, String block) {
+        String signature = ComprehensiveMethodChangeUtil.extractSignature(block);
+        bySignature.computeIfAbsent(signature, k -> new ArrayList<>(1))
+                .add(new Candidate(filePath, block));
+        methodCount++;
+    }
+
+    /** Methods indexed. */
+    public int size() {
+        return methodCount;
+    }
+
+    /**
+     * Methods whose signature text equals signature: all of them in change order, or,
+     * in a larger bucket, the {@link #MAX_CANDIDATES} whose bodies are estimated most
+     * similar to body, best estimate first.
+     */
+    public List<Candidate> candidates(String signature, String body) {
+        List<Candidate> bucket = bySignature.get(signature);
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+        if (bucket.size() <= MAX_CANDIDATES) {
+            return bucket;
+        }
+        long[] sketch = sketch(body);
+        int[] scores = new int[bucket.size()];
+        Integer[] positions = new Integer[bucket.size()];
+        for (int i = 0; i < positions.length; i++) {
+            scores[i] = agreement(sketch, bucket.get(i).getSketch());
+            positions[i] = i;
+        }
+        // best estimate first, earlier methods first among equals
+        Arrays.sort(positions, (x, y) -> scores[x] != scores[y] ? Integer.compare(scores[y], scores[x]) : Integer.compare(x, y));
+        List<Candidate> top = new ArrayList<>(MAX_CANDIDATES);
+        for (int i = 0; i < MAX_CANDIDATES; i++) {
+            top.add(bucket.get(positions[i]));
+        }
+        return top;
+    }
+
+    /**
+     * Source text of every method in the new version of a changed file. Files over the
+     * parse limit are scanned lexically instead of parsed, or skipped in skip mode.
+     */
+    private static List<String> getMethodBlocks(
+            RepositorySession session,
+            GitHubService gitHubService,
+            FileChange change
+    ) throws IOException {
+        List<String> blocks = new ArrayList<>();
+        ObjectId blobId = change.getNewId();
+        try {
+            String fileContent = gitHubService.getBlobContent(session, blobId);
+            for (MethodDeclarationData md : JDTParser.getMethods(fileContent, blobId)) {
+                blocks.add(md.getBody());
+            }
+        } catch (OversizedBlobException e) {
+            if (gitHubService.isScanOversized()) {
+                for (ScannedSource.ScannedMethod m : gitHubService.scanBlob(session, blobId).getMethods()) {
+                    blocks.add(m.getBlock());
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * MinHash sketch of the shingles of text: every run of SHINGLE_LENGTH characters
+     * once whitespace is left out (a shorter text is one shingle).
+     */
+    static long[] sketch(String text) {
+        long[] mins = new long[SKETCH_SIZE];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        // polynomial hash of the last SHINGLE_LENGTH characters, rolled forward
+        long power = 1;
+        for (int i = 0; i < SHINGLE_LENGTH; i++) {
+            power *= 31;
+        }
+        char[] window = new char[SHINGLE_LENGTH];
+        long hash = 0;
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int slot = count % SHINGLE_LENGTH;
+            hash = hash * 31 + c;
+            if (count >= SHINGLE_LENGTH) {
+                hash -= power * window[slot];
+            }
+            window[slot] = c;
+            count++;
+            if (count >= SHINGLE_LENGTH) {
+                addShingle(mins, hash);
+            }
+        }
+        if (count > 0 && count < SHINGLE_LENGTH) {
+            addShingle(mins, hash);
+        }
+        return mins;
+    }
+
+    private static void addShingle(long[] mins, long hash) {
+        for (int k = 0; k < SKETCH_SIZE; k++) {
+            long h = mix(hash ^ SEEDS[k]);
+            if (h < mins[k]) {
+                mins[k] = h;
+            }
+        }
+    }
+
+    /** Sketch positions that agree; agreement / SKETCH_SIZE estimates the Jaccard similarity. */
+    private static int agreement(long[] a, long[] b) {
+        int same = 0;
+        for (int k = 0; k < SKETCH_SIZE; k++) {
+            if (a[k] == b[k]) {
+                same++;
+            }
+        }
+        return same;
+    }
+
+    /** MurmurHash3's 64-bit finalizer. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** An indexed method: its file, its source text, and its body, extracted on first use. */
+    public static final class Candidate {
+        private final String path;
+        private final String block;
+        private String body;
+        private long[] sketch;
+
+        private Candidate(String path, String block) {
+            this.path = path;
+            this.block = block;
+        }
+
+        /** New path of the file the method is in. */
+        public String getPath() { return path; }
+
+        /** The whole method text. */
+        public String getBlock() { return block; }
+
+        public String getBody() {
+            if (body == null) {
+                body = ComprehensiveMethodChangeUtil.extractBody(block);
+            }
+            return body;
+        }
+
+        private long[] getSketch() {
+            if (sketch == null) {
+                sketch = MethodMoveIndex.sketch(getBody());
+            }
+            return sketch;
+        }
+    }
+}
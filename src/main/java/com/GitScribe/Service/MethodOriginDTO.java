@@ -0,0 +1,57 @@
+package com.GitScribe.Service;
+
+import com.GitScribe.Util.CommitInfo;
+
+/** Answer of an "introduced in" or "last modified in" query for one method. */
+public class MethodOriginDTO {
+    private String methodName;
+    private String methodSignature;
+    private String filePath;
+    private CommitInfo commit;
+    private boolean recorded;
+    private boolean fullHistory;
+    private int blameRuns;
+    private int blamedLines;
+    private int pairsCompared;
+
+    public String getMethodName() { return methodName; }
+    public void setMethodName(String methodName) { this.methodName = methodName; }
+
+    /** Name and parameter types, e.g. "put(K,V)". */
+    public String getMethodSignature() { return methodSignature; }
+    public void setMethodSignature(String methodSignature) { this.methodSignature = methodSignature; }
+
+    /** Path of the file at the answering commit (differs from the requested path across renames). */
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    /** The answering commit, with change types when it is an entry of the full history. */
+    public CommitInfo getCommit() { return commit; }
+    public void setCommit(CommitInfo commit) { this.commit = commit; }
+
+    /**
+     * True if the commit is the one the full method history lists; false if the answer
+     * lies before the file's recorded history (e.g. the commit that created the file,
+     * which the history does not list), found by blame alone.
+     */
+    public boolean isRecorded() { return recorded; }
+    public void setRecorded(boolean recorded) { this.recorded = recorded; }
+
+    /**
+     * True if the answer was read from the full method history, built for this query
+     * because the method moved into another file there, which blame does not follow.
+     */
+    public boolean isFullHistory() { return fullHistory; }
+    public void setFullHistory(boolean fullHistory) { this.fullHistory = fullHistory; }
+
+    /** Blame computations and lines blamed, over all of them. */
+    public int getBlameRuns() { return blameRuns; }
+    public void setBlameRuns(int blameRuns) { this.blameRuns = blameRuns; }
+
+    public int getBlamedLines() { return blamedLines; }
+    public void setBlamedLines(int blamedLines) { this.blamedLines = blamedLines; }
+
+    /** Commit pairs compared with the history engine's detectors to confirm the answer. */
+    public int getPairsCompared() { return pairsCompared; }
+    public void setPairsCompared(int pairsCompared) { this.pairsCompared = pairsCompared; }
+}
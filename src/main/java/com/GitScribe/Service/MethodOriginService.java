@@ -0,0 +1,549 @@
+package com.GitScribe.Service;
+
+import com.GitScribe.Changes.FileRenameDetector;
+import com.GitScribe.Util.BodyEditStats;
+import com.GitScribe.Util.CommitInfo;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+import org.eclipse.jgit.blame.BlameGenerator;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * "Introduced in" and "last modified in" for one method, without building its whole
+ * history. JGit's blame (following file renames) attributes the method's current lines
+ * to the commits that last changed them; those are mapped onto the file's recorded
+ * history (the first-parent walk {@link MethodHistoryService} uses, where a side-branch
+ * change shows up at its merge), and the commit pair found is confirmed with the same
+ * detectors the full history runs. Only blamed regions and the confirming pairs are
+ * read and parsed. The recorded history is walked once per (HEAD, path) and then served
+ * from the cache behind {@link GitHubService#getFileHistory}, with commits looked up in
+ * it by id, so only the first query on a file at a given HEAD pays for a walk as long
+ * as the file's history; the queries after it cost what the method needs.
+ *
+ * Answers agree with the full history: "last modified" is its newest entry, "introduced"
+ * its newest addition. Two cases are not visible to blame and are not covered: a method
+ * that disappears and comes back without its declaration lines changing (e.g. the file
+ * fails to parse in between), and a change that is later reverted by deleting the lines
+ * it added. Blame does not follow a method into another file, while the full history
+ * does: where the method disappears next to the answer (the first pair, which the full
+ * history compares against the latest version, and the pairs at and just before the
+ * answer) the move detector runs, and if the full history would follow the method
+ * elsewhere the answer is taken from the full history instead (see
+ * {@link MethodOriginDTO#isFullHistory()}). Moves hidden behind a longer absence are not seen.
+ */
+@Service
+public class MethodOriginService {
+
+    @Autowired
+    private GitHubService gitHubService;
+
+    @Autowired
+    private RepositorySessionRegistry sessionRegistry;
+
+    @Autowired
+    private MethodHistoryService methodHistoryService;
+
+    /** One query: the file's recorded history, its versions as loaded so far, and counters. */
+    private static class Query implements AutoCloseable {
+        final RepositorySession session;
+        final String filePath;
+        final FileHistory history;
+        final FileVersion[] versions;
+        final ObjectId[] blobIds;
+        final RevWalk walk;
+        final MethodOriginDTO result = new MethodOriginDTO();
+        String methodName;
+        String methodParams;
+        // the query asks for the introducing commit, not the last modifying one
+        boolean introduced;
+        MethodSnapshot latest;
+        // token diff of the pair changesAt compared last
+        BodyEditStats bodyEdits;
+        // pair at which the full history follows the method into movedTo, set by movedAt
+        int movedAt;
+        String movedTo;
+
+        Query(RepositorySession session, String filePath, FileHistory history) {
+            this.session = session;
+            this.filePath = filePath;
+            this.history = history;
+            this.versions = new FileVersion[history.size()];
+            this.blobIds = new ObjectId[history.size()];
+            this.walk = new RevWalk(session.getObjectReader());
+        }
+
+        @Override
+        public void close() {
+            walk.close();
+        }
+    }
+
+    /** Returned by {@link Blame#next()} once every blamed line is read. */
+    private static final int NONE = Integer.MIN_VALUE;
+
+    /**
+     * The commit that introduced the method: the newest commit pair of the file's history
+     * in which it appears. signature ("name(Type,Type)") selects an overload; without it
+     * the first method with that name is used.
+     */
+    public MethodOriginDTO getIntroduced(String repoDirPath, String filePath, String methodName,
+                                         String signature) throws IOException {
+        try (RepositorySession session = sessionRegistry.acquire(repoDirPath);
+             Query q = open(session, filePath)) {
+            q.introduced = true;
+            int v = q.history.size() - 1;
+            MethodSnapshot method = selectMethod(q, methodName, signature);
+            while (true) {
+                // the method's identity (name and parameters) can only change on its header lines
+                int[] header = headerLines(method);
+                int k;
+                RevCommit newest;
+                try (Blame blame = new Blame(q, v, header[0], header[1])) {
+                    k = blame.newest();
+                    newest = blame.newestCommit;
+                }
+                if (k < 1) {
+                    return origin(q, newest);
+                }
+                MethodSnapshot before = find(q, version(q, k - 1));
+                if (before == null) {
+                    List<String> changes = changesAt(q, k);
+                    return changes != null ? recorded(q, k, changes) : origin(q, newest);
+                }
+                // the header changed without changing the method's identity: keep going from there
+                v = k - 1;
+                method = before;
+            }
+        }
+    }
+
+    /**
+     * The commit that last modified the method: the newest commit pair of the file's
+     * history that lists a change to it.
+     */
+    public MethodOriginDTO getLastModified(String repoDirPath, String filePath, String methodName,
+                                           String signature) throws IOException {
+        try (RepositorySession session = sessionRegistry.acquire(repoDirPath);
+             Query q = open(session, filePath)) {
+            int v = q.history.size() - 1;
+            MethodSnapshot method = selectMethod(q, methodName, signature);
+            while (true) {
+                // newest version known to have the method's text, and the oldest pair that may change it;
+                // a blamed commit whose older version has the same text only moved lines (diff alignment),
+                // and one whose own version differs means lines were removed later, found pair by pair.
+                // Blamed commits are read newest first and the blame stops at the first real change.
+                int high = v;
+                int low = 1;
+                boolean changed = false;
+                RevCommit newest;
+                try (Blame blame = new Blame(q, v, method.getStartLine() - 1, method.getEndLine())) {
+                    for (int c = blame.next(); c != NONE && !changed; c = blame.next()) {
+                        if (c < 1 || c > high) {
+                            continue;
+                        }
+                        MethodSnapshot before = find(q, version(q, c - 1));
+                        if (before == null || !before.hasSameText(method)) {
+                            low = c;
+                            changed = true;
+                            MethodSnapshot at = c == high ? method : find(q, version(q, c));
+                            if (at != null && at.hasSameText(method)) {
+                                // unchanged after c: only the pair at c changes the text
+                                high = c;
+                            }
+                        } else {
+                            high = c - 1;
+                        }
+                    }
+                    newest = blame.newestCommit;
+                }
+                if (!changed && high >= 1) {
+                    // no blamed line changed in the recorded pairs, but lines may have been removed
+                    MethodSnapshot first = find(q, version(q, 0));
+                    changed = first == null || !first.hasSameText(method);
+                }
+                for (int i = changed ? high : Math.min(high, 1); i >= low; i--) {
+                    List<String> changes = changesAt(q, i);
+                    if (changes != null) {
+                        return recorded(q, i, changes);
+                    }
+                }
+                if (!changed || low <= 1) {
+                    return origin(q, newest);
+                }
+                // the text changed in [low, high] without a listed change: go on from before it
+                v = low - 1;
+                method = find(q, version(q, v));
+                if (method == null) {
+                    return origin(q, newest);
+                }
+            }
+        }
+    }
+
+    private Query open(RepositorySession session, String filePath) throws IOException {
+        return new Query(session, filePath, gitHubService.getFileHistory(session, filePath));
+    }
+
+    /** The queried method in the newest recorded version (HEAD's version if the file has no recorded history). */
+    private MethodSnapshot selectMethod(Query q, String methodName, String signature) throws IOException {
+        FileVersion top = q.history.size() > 0 ? version(q, q.history.size() - 1) : headVersion(q);
+        String key = signature != null ? signature.replaceAll("\\s", "") : null;
+        for (MethodDeclarationData md : top.getMethodsNamed(methodName)) {
+            if (key == null || md.getSignatureKey().equals(key)) {
+                q.methodName = md.getName();
+                q.methodParams = md.getParameterList();
+                q.result.setMethodName(md.getName());
+                q.result.setMethodSignature(md.getSignatureKey());
+                return md.getSnapshot();
+            }
+        }
+        throw new IOException("Method " + (key != null ? key : methodName) + " not found in " + q.filePath);
+    }
+
+    /**
+     * Blame of lines [start, end) (0-based) of the version at history index v, or of HEAD's
+     * version if the file has no recorded history, read region by region. JGit attributes
+     * lines newest commit first, so the walk goes back only as far as the caller reads.
+     */
+    private class Blame implements AutoCloseable {
+        private final Query q;
+        private final BlameGenerator generator;
+        private final int start;
+        private final int end;
+        private final Set<Integer> indices = new HashSet<>();
+        private int remaining;
+        /** Newest commit (by commit time) among the lines read so far, or null. */
+        RevCommit newestCommit;
+
+        Blame(Query q, int v, int start, int end) throws IOException {
+            this.q = q;
+            this.start = start;
+            this.end = end;
+            this.remaining = end - start;
+            RevCommit commit = v >= 0 ? q.history.getCommit(v) : q.walk.parseCommit(head(q));
+            generator = new BlameGenerator(q.session.getRepository(), v >= 0 ? q.history.getPath(v) : q.filePath);
+            generator.setFollowFileRenames(true);
+            generator.setDiffAlgorithm(DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM));
+            generator.push(null, commit);
+            q.result.setBlameRuns(q.result.getBlameRuns() + 1);
+        }
+
+        /** Next history index that changed a blamed line (0 or less: before the recorded pairs), or NONE. */
+        int next() throws IOException {
+            while (remaining > 0 && generator.next()) {
+                int from = Math.max(start, generator.getResultStart());
+                int to = Math.min(end, generator.getResultEnd());
+                RevCommit source = generator.getSourceCommit();
+                if (from >= to || source == null) {
+                    continue;
+                }
+                remaining -= to - from;
+                q.result.setBlamedLines(q.result.getBlamedLines() + to - from);
+                RevCommit parsed = q.walk.parseCommit(source);
+                if (newestCommit == null || parsed.getCommitTime() > newestCommit.getCommitTime()) {
+                    newestCommit = parsed;
+                }
+                int index = historyIndex(q, parsed);
+                if (indices.add(index)) {
+                    return index;
+                }
+            }
+            return NONE;
+        }
+
+        /** Newest history index over all blamed lines, -1 if there are none. */
+        int newest() throws IOException {
+            int newest = -1;
+            for (int index = next(); index != NONE; index = next()) {
+                newest = Math.max(newest, index);
+            }
+            return newest;
+        }
+
+        @Override
+        public void close() {
+            generator.close();
+        }
+    }
+
+    /**
+     * Index of the first recorded commit that contains commit: the commit itself when it
+     * is recorded, otherwise (a side-branch commit, or one that created the file) the
+     * first recorded descendant, found from the first recorded commit not older than it.
+     */
+    private int historyIndex(Query q, RevCommit commit) throws IOException {
+        int index = q.history.indexOf(commit);
+        if (index >= 0) {
+            return index;
+        }
+        int n = q.history.size();
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (q.history.getCommit(mid).getCommitTime() < commit.getCommitTime()) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int j = low;
+        while (j > 0 && contains(q, j - 1, commit)) {
+            j--;
+        }
+        while (j < n && !contains(q, j, commit)) {
+            j++;
+        }
+        return Math.min(j, n - 1);
+    }
+
+    private boolean contains(Query q, int index, RevCommit commit) throws IOException {
+        return q.walk.isMergedInto(commit, q.walk.parseCommit(q.history.getCommit(index)));
+    }
+
+    /**
+     * Change types the full history lists for the pair ending at history index i, or null
+     * if it lists nothing there. Mirrors {@link MethodHistoryService}: the first pair is
+     * compared against the latest version of the method, the others against the older one.
+     */
+    private List<String> changesAt(Query q, int i) throws IOException {
+        q.result.setPairsCompared(q.result.getPairsCompared() + 1);
+        FileVersion older = version(q, i - 1);
+        FileVersion newer = version(q, i);
+        if (older.isSkipped() || newer.isSkipped() || (i > 1 && q.blobIds[i - 1].equals(q.blobIds[i]))) {
+            return null;
+        }
+        MethodSnapshot oldSnap = find(q, older);
+        MethodSnapshot newSnap = find(q, newer);
+        MethodSnapshot baseline = i == 1 ? latest(q) : oldSnap;
+        q.bodyEdits = MethodHistoryService.bodyEdits(baseline, oldSnap, newSnap);
+        List<String> changes = MethodHistoryService.detectChanges(baseline, oldSnap, newSnap, q.bodyEdits);
+        return MethodHistoryService.isRecorded(oldSnap, newSnap, changes) ? changes : null;
+    }
+
+    private MethodSnapshot find(Query q, FileVersion version) {
+        return MethodHistoryService.extractMethodBlockAccurate(version, q.methodName, q.methodParams);
+    }
+
+    /** The method in the latest version of the file, as the full history starts from it. */
+    private MethodSnapshot latest(Query q) throws IOException {
+        if (q.latest == null) {
+            for (MethodDeclarationData md : JDTParser.getMethods(gitHubService.getFileContent(q.session, q.filePath))) {
+                if (md.getName().equals(q.methodName) && md.getParameterList().equals(q.methodParams)) {
+                    q.latest = md.getSnapshot();
+                    break;
+                }
+            }
+        }
+        return q.latest;
+    }
+
+    /** Version at history index i, loaded on first use. */
+    private FileVersion version(Query q, int i) throws IOException {
+        if (q.versions[i] == null) {
+            ObjectId blobId = gitHubService.getBlobIdAtCommit(q.session, q.history.getPath(i), q.history.getCommit(i).getName());
+            q.blobIds[i] = blobId;
+            q.versions[i] = load(q, blobId);
+        }
+        return q.versions[i];
+    }
+
+    private FileVersion headVersion(Query q) throws IOException {
+        return load(q, gitHubService.getBlobIdAtCommit(q.session, q.filePath, head(q).getName()));
+    }
+
+    private FileVersion load(Query q, ObjectId blobId) throws IOException {
+        if (ObjectId.zeroId().equals(blobId)) {
+            return FileVersion.ABSENT;
+        }
+        try {
+            return FileVersion.of(gitHubService.getBlobContent(q.session, blobId), blobId);
+        } catch (OversizedBlobException e) {
+            return gitHubService.isScanOversized() ? FileVersion.scanned(gitHubService.scanBlob(q.session, blobId)) : FileVersion.SKIPPED;
+        }
+    }
+
+    private ObjectId head(Query q) throws IOException {
+        ObjectId head = q.session.getRepository().resolve(Constants.HEAD);
+        if (head == null) {
+            throw new IOException("Repository has no HEAD: " + q.session.getRepoDirPath());
+        }
+        return head;
+    }
+
+    private MethodOriginDTO recorded(Query q, int i, List<String> changes) throws IOException {
+        if (followsMove(q, i)) {
+            return fromFullHistory(q);
+        }
+        q.result.setFilePath(q.history.getPath(i));
+        q.result.setCommit(MethodHistoryService.commitInfo(q.history.getCommit(i), changes, q.bodyEdits));
+        q.result.setRecorded(true);
+        return q.result;
+    }
+
+    /** Answer found by blame alone, before the recorded history. */
+    private MethodOriginDTO origin(Query q, RevCommit commit) throws IOException {
+        if (followsMove(q, 0)) {
+            return fromFullHistory(q);
+        }
+        if (commit != null) {
+            q.result.setFilePath(q.history.size() > 0 ? q.history.getPath(0) : q.filePath);
+            CommitInfo ci = MethodHistoryService.commitInfo(q.walk.parseCommit(commit), List.of());
+            q.result.setCommit(ci);
+        }
+        q.result.setRecorded(false);
+        return q.result;
+    }
+
+    /**
+     * True if the full history follows the method into another file at the first pair or
+     * at the pairs ending at i - 1 and i (i is 0 for an answer before the recorded pairs),
+     * where the answer's pair may be the last one it compares in this file.
+     */
+    private boolean followsMove(Query q, int i) throws IOException {
+        int previous = 0;
+        for (int pair : new int[]{1, i - 1, i}) {
+            if (pair <= previous || pair >= q.history.size()) {
+                continue;
+            }
+            previous = pair;
+            if (movedAt(q, pair)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the method disappears in the pair ending at history index i and the move
+     * detector finds it in another file the commit changed, as {@link MethodHistoryService}
+     * checks it; the pair and the path are kept in the query.
+     */
+    private boolean movedAt(Query q, int i) throws IOException {
+        FileVersion newer = version(q, i);
+        if (newer.isSkipped() || find(q, newer) != null) {
+            return false;
+        }
+        FileVersion older = version(q, i - 1);
+        if (older.isSkipped() || (i > 1 && q.blobIds[i - 1].equals(q.blobIds[i]))) {
+            return false;
+        }
+        MethodSnapshot baseline = i == 1 ? latest(q) : find(q, older);
+        if (baseline == null) {
+            return false;
+        }
+        CommitChangeSet changeSet = gitHubService.getChangeSet(q.session, q.history.getCommit(i - 1), q.history.getCommit(i));
+        MethodMoveIndex moveIndex = MethodMoveIndex.build(changeSet, q.session, gitHubService);
+        String newPath = FileRenameDetector.detectFileRename(baseline.getDeclaration(), baseline.getText(), moveIndex);
+        if (newPath == null) {
+            return false;
+        }
+        q.movedAt = i;
+        q.movedTo = newPath;
+        return true;
+    }
+
+    /**
+     * Answer read from the method's full history, for a method it follows into another file:
+     * its newest entry, or its newest addition for an "introduced" query.
+     */
+    private MethodOriginDTO fromFullHistory(Query q) throws IOException {
+        String moveCommit = q.history.getCommit(q.movedAt).getName();
+        System.out.println("MethodOriginService: " + q.methodName + " moved to " + q.movedTo
+                + " at " + moveCommit + ", reading its full history");
+        q.result.setFullHistory(true);
+        MethodHistoryDTO full = methodHistoryService.getMethodHistory(q.session, q.filePath, q.methodName, q.methodParams);
+        boolean moved = false;
+        boolean answerMoved = false;
+        CommitInfo answer = null;
+        for (CommitInfo ci : full != null ? full.getCommitHistory() : List.<CommitInfo>of()) {
+            // entries from the move on are read from the file the method moved to
+            moved |= ci.getCommitId().equals(moveCommit);
+            if (!q.introduced || (ci.getChangeTypes() != null && ci.getChangeTypes().contains("Introduced"))) {
+                answer = ci;
+                answerMoved = moved;
+            }
+        }
+        if (answer == null) {
+            q.result.setRecorded(false);
+            return q.result;
+        }
+        int index = q.history.indexOf(ObjectId.fromString(answer.getCommitId()));
+        q.result.setFilePath(answerMoved ? q.movedTo : index >= 0 ? q.history.getPath(index) : q.filePath);
+        q.result.setCommit(answer);
+        q.result.setRecorded(true);
+        return q.result;
+    }
+
+    /** True if token is an identifier; the scanner's constant for it is deprecated, not replaced. */
+    @SuppressWarnings("deprecation")
+    private static boolean isIdentifier(int token) {
+        return token == ITerminalSymbols.TokenNameIdentifier;
+    }
+
+    /**
+     * 0-based lines [first, last + 1) from the method's name to the end of its parameter
+     * list; the whole method if they cannot be found.
+     */
+    static int[] headerLines(MethodSnapshot method) {
+        String text = method.getText();
+        int first = method.getStartLine() - 1;
+        int[] whole = {first, method.getEndLine()};
+        IScanner scanner = ToolFactory.createScanner(false, false, false, false);
+        char[] source = text.toCharArray();
+        scanner.setSource(source);
+        char[] name = method.getName().toCharArray();
+        try {
+            int token;
+            // start of the method's name when it is the previous token
+            int nameStart = -1;
+            while ((token = scanner.getNextToken()) != ITerminalSymbols.TokenNameEOF) {
+                if (token == ITerminalSymbols.TokenNameLPAREN && nameStart >= 0) {
+                    break;
+                }
+                nameStart = isIdentifier(token)
+                        && Arrays.equals(scanner.getCurrentTokenSource(), name)
+                        ? scanner.getCurrentTokenStartPosition() : -1;
+            }
+            if (token == ITerminalSymbols.TokenNameEOF) {
+                return whole;
+            }
+            int depth = 1;
+            while (depth > 0 && (token = scanner.getNextToken()) != ITerminalSymbols.TokenNameEOF) {
+                if (token == ITerminalSymbols.TokenNameLPAREN) {
+                    depth++;
+                } else if (token == ITerminalSymbols.TokenNameRPAREN) {
+                    depth--;
+                }
+            }
+            int end = scanner.getCurrentTokenEndPosition();
+            return new int[]{first + lineBreaks(source, 0, nameStart), first + lineBreaks(source, 0, end) + 1};
+        } catch (InvalidInputException e) {
+            return whole;
+        }
+    }
+
+    private static int lineBreaks(char[] source, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (source[i] == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
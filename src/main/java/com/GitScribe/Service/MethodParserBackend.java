@@ -0,0 +1,34 @@
+package com.GitScribe.Service;
+
+import java.util.List;
+
+/**
+ * Parser behind {@link JDTParser#getMethods}: turns the text of a Java source file into
+ * the descriptors of its methods, in source order. The backend is chosen per deployment
+ * with {@code gitscribe.parser.backend} ("jdt", the default, or "javaparser").
+ *
+ * Descriptors are matched across versions of a file and against methods parsed on their
+ * own by JDT, so every backend must describe a method the way the JDT backend does:
+ * parameter, type and annotation strings as JDT prints them, and the method text
+ * starting at its javadoc. Implementations must be safe for concurrent use.
+ */
+public interface MethodParserBackend {
+
+    /** Name used to select this backend in the configuration. */
+    String getName();
+
+    List<MethodDescriptor> parseDescriptors(String javaSource);
+
+    /** The backend with the given name; throws IllegalArgumentException for unknown names. */
+    static MethodParserBackend named(String name) {
+        switch (name.trim().toLowerCase()) {
+            case JdtParserBackend.NAME:
+                return new JdtParserBackend();
+            case JavaParserBackend.NAME:
+                return new JavaParserBackend();
+            default:
+                throw new IllegalArgumentException("Unknown parser backend: " + name
+                        + " (expected " + JdtParserBackend.NAME + " or " + JavaParserBackend.NAME + ")");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything the change detectors compare about one version of a method, taken from
+ * the file-level parse: parameters, modifiers, annotations, return type, throws clause,
+ * the signature and body text, and the body as a token stream. Detectors read a
+ * snapshot instead of re-parsing the method text; only the body tokens are computed
+ * (with JDT's scanner, not a parser) and only when first asked for.
+ */
+public final class MethodSnapshot {
+
+    private final MethodDeclarationData method;
+    private final String text;
+    private List<String> bodyTokens;
+    private MethodFingerprint fingerprint;
+
+    MethodSnapshot(MethodDeclarationData method) {
+        this.method = method;
+        this.text = method.getBody();
+    }
+
+    private MethodDescriptor descriptor() {
+        return method.getDescriptor();
+    }
+
+    public String getName() {
+        return descriptor().getName();
+    }
+
+    /** First line of the method in its file, 1-based. */
+    public int getStartLine() {
+        return descriptor().getStartLine();
+    }
+
+    /** Last line of the method in its file, 1-based. */
+    public int getEndLine() {
+        return descriptor().getEndLine();
+    }
+
+    /** Each parameter as JDT prints it, e.g. "final int a". */
+    public List<String> getParameters() {
+        return descriptor().getParameters();
+    }
+
+    /** Modifiers and annotations in source order. */
+    public List<String> getModifiers() {
+        return descriptor().getModifierList();
+    }
+
+    /** The annotations among {@link #getModifiers()}. */
+    public List<String> getAnnotations() {
+        List<String> annotations = new ArrayList<>();
+        for (String modifier : descriptor().getModifierList()) {
+            if (modifier.startsWith("@")) {
+                annotations.add(modifier);
+            }
+        }
+        return annotations;
+    }
+
+    /** Return type, "" for constructors. */
+    public String getReturnType() {
+        return descriptor().getReturnType();
+    }
+
+    public List<String> getThrownTypes() {
+        return descriptor().getThrownTypes();
+    }
+
+    /** The whole method text, javadoc and annotations included. */
+    public String getText() {
+        return text;
+    }
+
+    /** Fingerprints of the method text, computed on first use with one scan. */
+    public synchronized MethodFingerprint getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = MethodFingerprint.of(text, descriptor().getBodyHash());
+        }
+        return fingerprint;
+    }
+
+    /** True if other has the same code tokens (comments and layout aside). */
+    public boolean hasSameCode(MethodSnapshot other) {
+        return getFingerprint().hasSameCode(other.getFingerprint());
+    }
+
+    /** True if other's method text is identical to this one's; compared in place, by hash first. */
+    public boolean hasSameText(MethodSnapshot other) {
+        return method.hasSameBody(other.method);
+    }
+
+    /** Everything before the first '{' of the method text, trimmed. */
+    public String getSignatureText() {
+        int index = text.indexOf('{');
+        return (index != -1 ? text.substring(0, index) : text).trim();
+    }
+
+    /** Everything between the first '{' and the last '}' of the method text, trimmed. */
+    public String getBodyText() {
+        int open = text.indexOf('{');
+        int close = text.lastIndexOf('}');
+        if (open != -1 && close > open) {
+            return text.substring(open + 1, close).trim();
+        }
+        return "";
+    }
+
+    /** Tokens of {@link #getBodyText()}, without whitespace and comments. */
+    public synchronized List<String> getBodyTokens() {
+        if (bodyTokens == null) {
+            bodyTokens = tokenize(getBodyText());
+        }
+        return bodyTokens;
+    }
+
+    /** The declaration as JDT prints it; builds the method's AST on first use. */
+    public String getDeclaration() {
+        return method.getMethodDeclaration().toString();
+    }
+
+    private static List<String> tokenize(String source) {
+        if (source.isEmpty()) {
+            return Collections.emptyList();
+        }
+        IScanner scanner = ToolFactory.createScanner(false, false, false, false);
+        char[] chars = source.toCharArray();
+        scanner.setSource(chars);
+        List<String> tokens = new ArrayList<>();
+        try {
+            while (scanner.getNextToken() != ITerminalSymbols.TokenNameEOF) {
+                tokens.add(new String(scanner.getCurrentTokenSource()));
+            }
+        } catch (InvalidInputException e) {
+            // unterminated literal or comment: keep the rest as one token
+            int start = scanner.getCurrentTokenStartPosition();
+            tokens.add(new String(chars, start, chars.length - start));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,24 @@
+package com.GitScribe.Service;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of loading a file version larger than the configured parse limit
+ * ({@code gitscribe.blob.max-parse-bytes}). Callers either skip the version or scan it
+ * with {@link GitHubService#scanBlob}.
+ */
+public class OversizedBlobException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long size;
+    private final long limit;
+
+    public OversizedBlobException(String what, long size, long limit) {
+        super(what + " is " + size + " bytes, over the parse limit of " + limit + " bytes");
+        this.size = size;
+        this.limit = limit;
+    }
+
+    public long getSize() { return size; }
+    public long getLimit() { return limit; }
+}
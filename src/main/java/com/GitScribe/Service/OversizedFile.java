@@ -0,0 +1,27 @@
+package com.GitScribe.Service;
+
+/** A file version that exceeded the parse limit, and how the analysis handled it. */
+public class OversizedFile {
+    /** The version was scanned lexically: methods were extracted without parsing the file. */
+    public static final String SCANNED = "scanned";
+    /** The version was left out: commit pairs involving it were not compared. */
+    public static final String SKIPPED = "skipped";
+
+    private String path;
+    /** Commit of the version, or null for the latest (working tree or HEAD) version. */
+    private String commitId;
+    private long sizeBytes;
+    private String handling;
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public String getCommitId() { return commitId; }
+    public void setCommitId(String commitId) { this.commitId = commitId; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public String getHandling() { return handling; }
+    public void setHandling(String handling) { this.handling = handling; }
+}
@@ -0,0 +1,115 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Content-addressed cache of parse results: the {@link MethodDescriptor}s of a source
+ * file, keyed by the git blob id of its content (or an equivalent SHA-1 of the text),
+ * so distinct sources can never share an entry. Bounded by a weight budget with LRU
+ * eviction; no AST nodes are retained.
+ *
+ * All methods are safe for concurrent use.
+ */
+public class ParseCache {
+
+    /** Default weight budget, roughly the bytes of heap held by cached descriptors. */
+    public static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
+
+    private final long maxWeight;
+
+    private final LinkedHashMap<ObjectId, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long currentWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ParseCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    public ParseCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /** Returns the cached descriptors of the source with the given id, or null. */
+    public List<MethodDescriptor> get(AnyObjectId sourceId) {
+        synchronized (entries) {
+            Entry e = entries.get(sourceId);
+            if (e == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return e.methods;
+        }
+    }
+
+    /** True if the source with the given id is cached; not counted as a lookup. */
+    public boolean contains(AnyObjectId sourceId) {
+        synchronized (entries) {
+            return entries.containsKey(sourceId);
+        }
+    }
+
+    public void put(AnyObjectId sourceId, List<MethodDescriptor> methods) {
+        long weight = 64;
+        for (MethodDescriptor m : methods) {
+            weight += m.weight();
+        }
+        if (weight > maxWeight) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(sourceId.copy(), new Entry(methods, weight));
+            if (previous != null) {
+                currentWeight -= previous.weight;
+            }
+            currentWeight += weight;
+            Iterator<Entry> it = entries.values().iterator();
+            while (currentWeight > maxWeight && it.hasNext()) {
+                Entry eldest = it.next();
+                it.remove();
+                currentWeight -= eldest.weight;
+                evictions++;
+            }
+        }
+    }
+
+    /** Drops every entry; the counters are kept. */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            currentWeight = 0;
+        }
+    }
+
+    public ParseCacheStats getStats() {
+        ParseCacheStats stats = new ParseCacheStats();
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+            stats.setWeight(currentWeight);
+            stats.setMaxWeight(maxWeight);
+            stats.setHits(hits);
+            stats.setMisses(misses);
+            stats.setEvictions(evictions);
+            long lookups = hits + misses;
+            stats.setHitRate(lookups == 0 ? 0.0 : (double) hits / lookups);
+        }
+        return stats;
+    }
+
+    private static final class Entry {
+        final List<MethodDescriptor> methods;
+        final long weight;
+
+        Entry(List<MethodDescriptor> methods, long weight) {
+            this.methods = methods;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.GitScribe.Service;
+
+/** Counters reported by {@link ParseCache}. */
+public class ParseCacheStats {
+    private int entries;
+    private long weight;
+    private long maxWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private double hitRate;
+
+    public int getEntries() { return entries; }
+    public void setEntries(int entries) { this.entries = entries; }
+
+    public long getWeight() { return weight; }
+    public void setWeight(long weight) { this.weight = weight; }
+
+    public long getMaxWeight() { return maxWeight; }
+    public void setMaxWeight(long maxWeight) { this.maxWeight = maxWeight; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    /** hits / (hits + misses), 0 before the first lookup. */
+    public double getHitRate() { return hitRate; }
+    public void setHitRate(double hitRate) { this.hitRate = hitRate; }
+}
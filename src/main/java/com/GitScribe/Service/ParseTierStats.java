@@ -0,0 +1,43 @@
+package com.GitScribe.Service;
+
+/**
+ * Counters reported by {@link JDTParser#getTierStats()}. Files are described from a
+ * header-only parse; a method's body is parsed only when its AST is asked for, and
+ * not compared at all when its text is unchanged between two versions or no line of
+ * it was edited.
+ */
+public class ParseTierStats {
+    private long headerParses;
+    private long fullParses;
+    private long methodsDescribed;
+    private long methodBodyParses;
+    private long unchangedMethodPairs;
+    private long untouchedMethodPairs;
+
+    /** Files parsed without method bodies. */
+    public long getHeaderParses() { return headerParses; }
+    public void setHeaderParses(long headerParses) { this.headerParses = headerParses; }
+
+    /** Files parsed with method bodies (the JavaParser backend, AST lookups by offset). */
+    public long getFullParses() { return fullParses; }
+    public void setFullParses(long fullParses) { this.fullParses = fullParses; }
+
+    /** Methods found by first-tier parses. */
+    public long getMethodsDescribed() { return methodsDescribed; }
+    public void setMethodsDescribed(long methodsDescribed) { this.methodsDescribed = methodsDescribed; }
+
+    /** Methods whose body was parsed on its own. */
+    public long getMethodBodyParses() { return methodBodyParses; }
+    public void setMethodBodyParses(long methodBodyParses) { this.methodBodyParses = methodBodyParses; }
+
+    /** Pairs of method versions with identical text, where body comparison was skipped. */
+    public long getUnchangedMethodPairs() { return unchangedMethodPairs; }
+    public void setUnchangedMethodPairs(long unchangedMethodPairs) { this.unchangedMethodPairs = unchangedMethodPairs; }
+
+    /** Pairs of file versions whose line diff missed the method, so it was not looked up at all. */
+    public long getUntouchedMethodPairs() { return untouchedMethodPairs; }
+    public void setUntouchedMethodPairs(long untouchedMethodPairs) { this.untouchedMethodPairs = untouchedMethodPairs; }
+
+    /** Method bodies never parsed: methods described minus bodies parsed, at least 0. */
+    public long getBodyParsesAvoided() { return Math.max(0, methodsDescribed - methodBodyParses); }
+}
@@ -0,0 +1,64 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Handle on an open repository obtained from {@link RepositorySessionRegistry#acquire(String)}.
+ *
+ * The handle may be used from any thread; {@link #getObjectReader()} hands each thread
+ * its own reader. Closing the handle releases it (it does not close the repository,
+ * which stays open for other sessions until it has been idle for a while).
+ */
+public class RepositorySession implements AutoCloseable {
+
+    private final RepositorySessionRegistry.Entry entry;
+    private boolean closed;
+
+    RepositorySession(RepositorySessionRegistry.Entry entry) {
+        this.entry = entry;
+    }
+
+    /** Canonical path of the repository directory (the key in the registry). */
+    public String getRepoDirPath() {
+        return entry.repoDirPath;
+    }
+
+    public Repository getRepository() {
+        return entry.repository;
+    }
+
+    /** True for a bare clone, which has no working tree and is read from HEAD. */
+    public boolean isBare() {
+        return entry.repository.isBare();
+    }
+
+    /**
+     * Object reader confined to the calling thread and owned by the registry.
+     * Callers must not close it.
+     */
+    public ObjectReader getObjectReader() {
+        return entry.reader();
+    }
+
+    /** Changed-path Bloom filter index of this repository, loaded once per open repository. */
+    public ChangedPathIndex getChangedPathIndex() {
+        return entry.changedPathIndex;
+    }
+
+    /**
+     * Indexes the commits HEAD gained since the index was last updated, on a background
+     * thread; returns at once. Does nothing if an update is already queued.
+     */
+    public void updateChangedPathIndexInBackground() {
+        entry.updateIndexInBackground();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            entry.release();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FS;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of open repositories keyed by canonical repository path.
+ *
+ * Every analysis acquires a {@link RepositorySession}; sessions on the same path share
+ * one ref-counted {@link Repository} (and its changed-path index), and each thread gets
+ * its own {@link ObjectReader}. A repository whose last session was released is closed
+ * after an idle timeout, so back-to-back requests on the same clone reuse the open
+ * repository while abandoned clones do not keep file handles forever. Changed-path
+ * indexes are updated one at a time on a background thread.
+ */
+@Service
+public class RepositorySessionRegistry {
+
+    /** Default time an unused repository stays open. */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000L;
+
+    private final long idleTimeoutMillis;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ScheduledExecutorService reaper;
+    private final ExecutorService indexer;
+
+    public RepositorySessionRegistry() {
+        this(DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    @Autowired
+    public RepositorySessionRegistry(
+            @Value("${gitscribe.session.idle-timeout-ms:" + DEFAULT_IDLE_TIMEOUT_MILLIS + "}") long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "repository-session-reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000L, Math.min(idleTimeoutMillis, 60_000L));
+        reaper.scheduleWithFixedDelay(this::closeIdle, period, period, TimeUnit.MILLISECONDS);
+        this.indexer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "changed-path-indexer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Opens (or re-uses) the repository at repoDirPath. The returned session must be closed
+     * when the caller is done with it, typically with try-with-resources.
+     */
+    public RepositorySession acquire(String repoDirPath) throws IOException {
+        String key = new File(repoDirPath).getCanonicalPath();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key, openRepository(key));
+                entries.put(key, entry);
+            }
+            entry.refCount++;
+            return new RepositorySession(entry);
+        }
+    }
+
+    /**
+     * Brings the changed-path index of the repository at repoDirPath up to date with its
+     * HEAD in the background and returns at once, e.g. after a clone or fetch.
+     */
+    public void updateIndexInBackground(String repoDirPath) throws IOException {
+        try (RepositorySession session = acquire(repoDirPath)) {
+            session.updateChangedPathIndexInBackground();
+        }
+    }
+
+    /** Number of repositories currently open. */
+    public synchronized int getOpenRepositoryCount() {
+        return entries.size();
+    }
+
+    /** Work done by {@link #runIfUnused} while no session can be opened on the repository. */
+    public interface UnusedAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * Runs action unless a session is open on repoDirPath. An idle open repository is
+     * closed first, and no session can be acquired on the path while action runs, so the
+     * action may move or delete the directory.
+     *
+     * @return false (without running action) if the repository is in use.
+     */
+    public boolean runIfUnused(String repoDirPath, UnusedAction action) throws IOException {
+        String key = new File(repoDirPath).getCanonicalPath();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.refCount > 0) {
+                    return false;
+                }
+                entries.remove(key);
+                entry.close();
+            }
+            action.run();
+            return true;
+        }
+    }
+
+    /**
+     * Runs action unless an analysis holds a session on repoDirPath; background index
+     * updates, which read only objects, do not count. No session can be acquired on the
+     * path while action runs, so it may rewrite the working tree, but not the directory.
+     *
+     * @return false (without running action) if an analysis is reading the repository.
+     */
+    public boolean runIfNotAnalyzed(String repoDirPath, UnusedAction action) throws IOException {
+        String key = new File(repoDirPath).getCanonicalPath();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.refCount > entry.indexUpdates) {
+                return false;
+            }
+            action.run();
+            return true;
+        }
+    }
+
+    /**
+     * When the repository at repoDirPath was last used by a session: now if a session is
+     * open, the last release if it is open but idle, and 0 if it is not open.
+     */
+    public long getLastUsed(String repoDirPath) throws IOException {
+        String key = new File(repoDirPath).getCanonicalPath();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return 0L;
+            }
+            return entry.refCount > 0 ? System.currentTimeMillis() : entry.lastReleased;
+        }
+    }
+
+    /** Closes every repository that has had no session for longer than the idle timeout. */
+    void closeIdle() {
+        List<Entry> idle = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.refCount == 0 && now - entry.lastReleased >= idleTimeoutMillis) {
+                    it.remove();
+                    idle.add(entry);
+                }
+            }
+        }
+        for (Entry entry : idle) {
+            entry.close();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.shutdownNow();
+        indexer.shutdownNow();
+        List<Entry> all;
+        synchronized (this) {
+            all = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        for (Entry entry : all) {
+            entry.close();
+        }
+    }
+
+    /**
+     * Git directory of the repository in repoDir: its ".git" directory for a clone with
+     * a working tree, or the directory itself for a bare clone.
+     */
+    public static File resolveGitDir(File repoDir) {
+        File dotGit = new File(repoDir, Constants.DOT_GIT);
+        if (!dotGit.exists() && RepositoryCache.FileKey.isGitRepository(repoDir, FS.DETECTED)) {
+            return repoDir;
+        }
+        return dotGit;
+    }
+
+    private static Repository openRepository(String repoDirPath) throws IOException {
+        File gitDir = resolveGitDir(new File(repoDirPath));
+        return new FileRepositoryBuilder()
+                .setGitDir(gitDir)
+                .readEnvironment()
+                .findGitDir()
+                .build();
+    }
+
+    /** One open repository; refCount and lastReleased are guarded by the registry. */
+    final class Entry {
+        final String repoDirPath;
+        final Repository repository;
+        final ChangedPathIndex changedPathIndex;
+        private final List<ObjectReader> readers = new ArrayList<>();
+        private final ThreadLocal<ObjectReader> threadReader;
+        int refCount;
+        // references held by background index updates, which read objects only
+        int indexUpdates;
+        long lastReleased;
+
+        Entry(String repoDirPath, Repository repository) {
+            this.repoDirPath = repoDirPath;
+            this.repository = repository;
+            this.changedPathIndex = ChangedPathIndex.open(repository);
+            this.threadReader = ThreadLocal.withInitial(() -> {
+                ObjectReader reader = repository.newObjectReader();
+                synchronized (readers) {
+                    readers.add(reader);
+                }
+                return reader;
+            });
+        }
+
+        ObjectReader reader() {
+            return threadReader.get();
+        }
+
+        /** Updates the changed-path index on the indexer thread, keeping the repository open meanwhile. */
+        void updateIndexInBackground() {
+            synchronized (RepositorySessionRegistry.this) {
+                refCount++;
+                indexUpdates++;
+            }
+            if (!changedPathIndex.updateInBackground(indexer, this::releaseIndexUpdate)) {
+                releaseIndexUpdate();
+            }
+        }
+
+        private void releaseIndexUpdate() {
+            synchronized (RepositorySessionRegistry.this) {
+                indexUpdates--;
+            }
+            release();
+        }
+
+        void release() {
+            synchronized (RepositorySessionRegistry.this) {
+                refCount--;
+                lastReleased = System.currentTimeMillis();
+            }
+        }
+
+        void close() {
+            synchronized (readers) {
+                for (ObjectReader reader : readers) {
+                    reader.close();
+                }
+                readers.clear();
+            }
+            repository.close();
+        }
+    }
+}
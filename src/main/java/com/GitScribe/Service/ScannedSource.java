@@ -0,0 +1,79 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Methods of an oversized source file as found by {@link LexicalMethodScanner}.
+ * Only method text is retained; a method is parsed (on its own, see
+ * {@link JDTParser#parseMethod}) when it is asked for, so no AST of the whole file is ever built.
+ */
+public class ScannedSource {
+
+    /** Name and text of one method found by the scan. */
+    public static class ScannedMethod {
+        private final String name;
+        private final String block;
+        private final int startLine;
+        private final int endLine;
+        private final boolean compactConstructor;
+
+        public ScannedMethod(String name, String block, int startLine, int endLine) {
+            this(name, block, startLine, endLine, false);
+        }
+
+        public ScannedMethod(String name, String block, int startLine, int endLine, boolean compactConstructor) {
+            this.name = name;
+            this.block = block;
+            this.startLine = startLine;
+            this.endLine = endLine;
+            this.compactConstructor = compactConstructor;
+        }
+
+        public String getName() { return name; }
+        public String getBlock() { return block; }
+        public int getStartLine() { return startLine; }
+        public int getEndLine() { return endLine; }
+        /** True for the compact canonical constructor of a record, which only parses inside one. */
+        public boolean isCompactConstructor() { return compactConstructor; }
+    }
+
+    private final List<ScannedMethod> methods;
+
+    public ScannedSource(List<ScannedMethod> methods) {
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    public List<ScannedMethod> getMethods() {
+        return methods;
+    }
+
+    /** Parses the method at index i of {@link #getMethods()}, or returns null if JDT rejects it. */
+    public MethodDeclarationData parse(int i) {
+        ScannedMethod m = methods.get(i);
+        MethodDeclaration parsed = m.isCompactConstructor()
+                ? JDTParser.parseCompactConstructor(m.getBlock(), m.getName())
+                : JDTParser.parseMethod(m.getBlock());
+        if (parsed == null) {
+            return null;
+        }
+        return new MethodDeclarationData(parsed, m.getBlock(), m.getStartLine(), m.getEndLine());
+    }
+
+    /** Parsed declarations of every method with the given name, in source order. */
+    public List<MethodDeclarationData> getMethodsNamed(String name) {
+        List<MethodDeclarationData> result = new ArrayList<>();
+        for (int i = 0; i < methods.size(); i++) {
+            if (methods.get(i).getName().equals(name)) {
+                MethodDeclarationData md = parse(i);
+                if (md != null) {
+                    result.add(md);
+                }
+            }
+        }
+        return result;
+    }
+}
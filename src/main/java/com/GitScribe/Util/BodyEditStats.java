@@ -0,0 +1,45 @@
+package com.GitScribe.Util;
+
+/**
+ * Size of a method body change, from a histogram diff of the body's code tokens
+ * (comments and layout aside). In each edit region the part both sides share counts as
+ * changed, the rest of the longer side as inserted or deleted; lines are the distinct
+ * body lines holding the edited tokens, split the same way.
+ */
+public class BodyEditStats {
+    private int tokensInserted;
+    private int tokensDeleted;
+    private int tokensChanged;
+    private int linesInserted;
+    private int linesDeleted;
+    private int linesChanged;
+    private int edits;
+    private int tokensBefore;
+    private int tokensAfter;
+
+    public int getTokensInserted() { return tokensInserted; }
+    public void setTokensInserted(int tokensInserted) { this.tokensInserted = tokensInserted; }
+    public int getTokensDeleted() { return tokensDeleted; }
+    public void setTokensDeleted(int tokensDeleted) { this.tokensDeleted = tokensDeleted; }
+    public int getTokensChanged() { return tokensChanged; }
+    public void setTokensChanged(int tokensChanged) { this.tokensChanged = tokensChanged; }
+    public int getLinesInserted() { return linesInserted; }
+    public void setLinesInserted(int linesInserted) { this.linesInserted = linesInserted; }
+    public int getLinesDeleted() { return linesDeleted; }
+    public void setLinesDeleted(int linesDeleted) { this.linesDeleted = linesDeleted; }
+    public int getLinesChanged() { return linesChanged; }
+    public void setLinesChanged(int linesChanged) { this.linesChanged = linesChanged; }
+
+    /** Number of edit regions the diff found. */
+    public int getEdits() { return edits; }
+    public void setEdits(int edits) { this.edits = edits; }
+
+    /** Code tokens of the old body and of the new one. */
+    public int getTokensBefore() { return tokensBefore; }
+    public void setTokensBefore(int tokensBefore) { this.tokensBefore = tokensBefore; }
+    public int getTokensAfter() { return tokensAfter; }
+    public void setTokensAfter(int tokensAfter) { this.tokensAfter = tokensAfter; }
+
+    /** Tokens touched in all: inserted, deleted and changed. */
+    public int getTokensTouched() { return tokensInserted + tokensDeleted + tokensChanged; }
+}
@@ -10,6 +10,7 @@ public class CommitInfo {
     private String message;
     private String htmlUrl;
     private List<String> changeTypes; // new field
+    private BodyEditStats bodyEdits;
 
     // Getters and setters for all fields...
     public String getCommitId() { return commitId; }
@@ -27,4 +28,8 @@ public class CommitInfo {
     public List<String> getChangeTypes() { return changeTypes; }
 
     public void setChangeTypes(List<String> changeTypes) { this.changeTypes = changeTypes; }
+
+    /** Token and line counts of the method body edit, null if the entry has no body edit: it compares no bodies (e.g. a file rename) or only comments and layout changed. */
+    public BodyEditStats getBodyEdits() { return bodyEdits; }
+    public void setBodyEdits(BodyEditStats bodyEdits) { this.bodyEdits = bodyEdits; }
 }
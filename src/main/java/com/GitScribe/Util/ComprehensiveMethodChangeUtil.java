@@ -2,6 +2,8 @@ package com.GitScribe.Util;
 
 
 
+import com.GitScribe.Changes.FormatChangeDetector;
+import com.GitScribe.Service.MethodFingerprint;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
@@ -69,55 +71,7 @@ public class ComprehensiveMethodChangeUtil {
      * Returns a value between 0.0 (no similarity) and 1.0 (exact match).
      */
     public static double jaroWinklerDistance(String s1, String s2) {
-        if (s1.equals(s2)) return 1.0;
-        int s1Len = s1.length();
-        int s2Len = s2.length();
-        if (s1Len == 0 || s2Len == 0) return 0.0;
-        int matchDistance = Math.max(s1Len, s2Len) / 2 - 1;
-        boolean[] s1Matches = new boolean[s1Len];
-        boolean[] s2Matches = new boolean[s2Len];
-
-        int matches = 0;
-        for (int i = 0; i < s1Len; i++) {
-            int start = Math.max(0, i - matchDistance);
-            int end = Math.min(i + matchDistance + 1, s2Len);
-            for (int j = start; j < end; j++) {
-                if (s2Matches[j]) continue;
-                if (s1.charAt(i) != s2.charAt(j)) continue;
-                s1Matches[i] = true;
-                s2Matches[j] = true;
-                matches++;
-                break;
-            }
-        }
-        if (matches == 0) return 0.0;
-
-        double transpositions = 0;
-        int k = 0;
-        for (int i = 0; i < s1Len; i++) {
-            if (!s1Matches[i]) continue;
-            while (!s2Matches[k]) {
-                k++;
-            }
-            if (s1.charAt(i) != s2.charAt(k)) {
-                transpositions++;
-            }
-            k++;
-        }
-        transpositions /= 2.0;
-        double jaro = ((matches / (double) s1Len) +
-                         (matches / (double) s2Len) +
-                         ((matches - transpositions) / matches)) / 3.0;
-
-        int prefix = 0;
-        for (int i = 0; i < Math.min(4, Math.min(s1Len, s2Len)); i++) {
-            if (s1.charAt(i) == s2.charAt(i)) {
-                prefix++;
-            } else {
-                break;
-            }
-        }
-        return jaro + prefix * 0.1 * (1 - jaro);
+        return StringSimilarity.jaroWinkler(s1, s2);
     }
 
     /**
@@ -131,6 +85,7 @@ public class ComprehensiveMethodChangeUtil {
      *  - Body differences (using Jaro–Winkler, threshold 0.95 for "Body Change")
      *  - Return type differences ("Return Type Change")
      *
+     * Blocks with the same code tokens give "Comment Only", "Format Only" or nothing.
      * If no specific change is flagged but the texts differ, it returns "Minor Modification."
      *
      * @param oldBlock The method block from the previous commit.
@@ -146,11 +101,11 @@ public class ComprehensiveMethodChangeUtil {
             return changes;
         }
 
-        // Normalize by removing whitespace and converting to lowercase.
-        String normOld = oldBlock.replaceAll("\\s+", "").toLowerCase();
-        String normNew = newBlock.replaceAll("\\s+", "").toLowerCase();
-        if (normOld.equals(normNew)) {
-            return changes; // No change detected.
+        // Same code tokens: at most comments or layout changed.
+        MethodFingerprint oldPrint = MethodFingerprint.of(oldBlock);
+        MethodFingerprint newPrint = MethodFingerprint.of(newBlock);
+        if (oldPrint.hasSameCode(newPrint)) {
+            return FormatChangeDetector.detectFormatChanges(oldPrint, newPrint);
         }
 
         MethodDeclaration oldMethod = parseMethodDeclaration(oldBlock);
@@ -198,7 +153,7 @@ public class ComprehensiveMethodChangeUtil {
             // 5. Check signature similarity.
             String oldSignature = extractSignature(oldBlock);
             String newSignature = extractSignature(newBlock);
-            double sigSim = jaroWinklerDistance(oldSignature, newSignature);
+            double sigSim = StringSimilarity.jaroWinkler(oldSignature, newSignature, 0.95);
             if (sigSim < 0.95) {
                 changes.add("Signature Change");
             }
@@ -206,7 +161,7 @@ public class ComprehensiveMethodChangeUtil {
             // 6. Check body similarity.
             String oldBody = extractBody(oldBlock);
             String newBody = extractBody(newBlock);
-            double bodySim = jaroWinklerDistance(oldBody, newBody);
+            double bodySim = StringSimilarity.jaroWinkler(oldBody, newBody, 0.95);
             if (bodySim < 0.95) {
                 changes.add("Body Change");
             }
@@ -1,5 +1,7 @@
 package com.GitScribe.Util;
 
+import com.GitScribe.Changes.FormatChangeDetector;
+import com.GitScribe.Service.MethodFingerprint;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
@@ -34,11 +36,9 @@ public class MethodChangeUtil {
     }
 
     /**
-     * Detects changes between two method blocks (old and new) using robust normalization.
-     * The normalization converts to lowercase and removes all whitespace.
-     * If the normalized strings are identical, no changes are detected.
-     * Otherwise, returns a list containing "Modified".
-     * Debug prints are added to help diagnose differences.
+     * Detects changes between two method blocks (old and new) by their token fingerprints.
+     * If the code tokens are identical, the result is "Comment Only", "Format Only" or
+     * empty (identical text). Otherwise, returns a list containing "Modified".
      */
     public static List<String> detectMethodChangeTypes(String oldBlock, String newBlock) {
         List<String> changes = new ArrayList<>();
@@ -48,20 +48,13 @@ public class MethodChangeUtil {
             }
             return changes;
         }
-        
-        // Normalize: remove all whitespace and convert to lowercase.
-        String normOld = oldBlock.replaceAll("\\s+", "").toLowerCase();
-        String normNew = newBlock.replaceAll("\\s+", "").toLowerCase();
-        
-        // Debug logging: print the normalized blocks for inspection.
-        System.out.println("Old normalized block: " + normOld);
-        System.out.println("New normalized block: " + normNew);
-        
-        if (normOld.equals(normNew)) {
-            return changes; // No change detected.
-        } else {
-            changes.add("Modified");
+
+        MethodFingerprint oldPrint = MethodFingerprint.of(oldBlock);
+        MethodFingerprint newPrint = MethodFingerprint.of(newBlock);
+        if (oldPrint.hasSameCode(newPrint)) {
+            return FormatChangeDetector.detectFormatChanges(oldPrint, newPrint);
         }
+        changes.add("Modified");
         return changes;
     }
     
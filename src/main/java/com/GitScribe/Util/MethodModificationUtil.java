@@ -39,7 +39,7 @@ public class MethodModificationUtil {
         for (MethodDeclarationData md : methods) {
             // Compare only the method body.
             String currentBody = MethodChangeUtil.extractBody(md.getBody());
-            double similarity = calculateSimilarity(baselineBody, currentBody);
+            double similarity = StringSimilarity.wordOverlap(baselineBody, currentBody);
             if (similarity >= 0.75) {  // 75% similarity threshold
                 foundSimilar = true;
                 break;
@@ -54,25 +54,4 @@ public class MethodModificationUtil {
         
         return changes;
     }
-    
-    /**
-     * A simple similarity metric based on common words.
-     * Returns a value between 0.0 (no similarity) and 1.0 (exact match).
-     */
-    private static double calculateSimilarity(String s1, String s2) {
-        if (s1 == null || s2 == null) return 0.0;
-        String[] words1 = s1.split("\\s+");
-        String[] words2 = s2.split("\\s+");
-        int common = 0;
-        for (String w1 : words1) {
-            for (String w2 : words2) {
-                if (w1.equals(w2)) {
-                    common++;
-                    break;
-                }
-            }
-        }
-        double avg = (words1.length + words2.length) / 2.0;
-        return avg > 0 ? common / avg : 0.0;
-    }
 }
@@ -7,6 +7,7 @@ import java.util.List;
 import com.GitScribe.Service.GitHubService;
 import com.GitScribe.Service.JDTParser;
 import com.GitScribe.Service.MethodDeclarationData;
+import com.GitScribe.Service.RepositorySession;
 
 public class MethodMovementUtil {
 
@@ -25,12 +26,14 @@ public class MethodMovementUtil {
      * @param baselineBlock    The baseline method block from the previous commit.
      * @param targetMethodName The name of the target method.
      * @param commitId         The commit ID to inspect.
+     * @param session          Repository whose working tree is read.
      * @param gitHubService    An instance of GitHubService to perform local file reads.
      * @return The new file path if the method was moved; otherwise, null.
      * @throws IOException 
      */
     public static String detectMethodMovement(String baselineBlock, String targetMethodName,
-                                                String commitId, GitHubService gitHubService) throws IOException {
+                                                String commitId, RepositorySession session,
+                                                GitHubService gitHubService) throws IOException {
         // Retrieve the list of files modified in this commit.
         List<String> modifiedFiles = getModifiedFilesForCommit(commitId);
 
@@ -41,7 +44,7 @@ public class MethodMovementUtil {
         // Iterate through each modified file.
         for (String filePath : modifiedFiles) {
             // Get file content using local GitHubService.
-            String fileContent = gitHubService.getFileContent(filePath);
+            String fileContent = gitHubService.getFileContent(session, filePath);
             if (fileContent == null || fileContent.isEmpty()) {
                 continue;
             }
@@ -55,7 +58,7 @@ public class MethodMovementUtil {
                 }
                 // Compare method bodies using a simple similarity metric.
                 String candidateBody = MethodChangeUtil.extractBody(md.getBody());
-                double similarity = calculateSimilarity(baselineBody, candidateBody);
+                double similarity = StringSimilarity.wordOverlap(baselineBody, candidateBody);
                 if (similarity >= 0.50) { // At least 50% similar.
                     return filePath;  // Found a candidate indicating the method has moved.
                 }
@@ -72,25 +75,4 @@ public class MethodMovementUtil {
         // TODO: Implement actual logic to retrieve modified files for the commit.
         return new ArrayList<>();
     }
-
-    /**
-     * A simple similarity metric based on common words.
-     * Returns a value between 0.0 (no similarity) and 1.0 (exact match).
-     */
-    private static double calculateSimilarity(String s1, String s2) {
-        if (s1 == null || s2 == null) return 0.0;
-        String[] words1 = s1.split("\\s+");
-        String[] words2 = s2.split("\\s+");
-        int common = 0;
-        for (String w1 : words1) {
-            for (String w2 : words2) {
-                if (w1.equals(w2)) {
-                    common++;
-                    break;
-                }
-            }
-        }
-        double avg = (words1.length + words2.length) / 2.0;
-        return avg > 0 ? common / avg : 0.0;
-    }
 }
@@ -0,0 +1,480 @@
+package com.GitScribe.Util;
+
+import java.util.Arrays;
+
+/**
+ * String similarity measures shared by the change detectors: Jaro–Winkler over the
+ * characters of two strings, Levenshtein distance, and a common-word ratio. All work in
+ * per-thread scratch buffers, so a comparison allocates nothing once the buffers have
+ * grown to the longest input seen on the thread.
+ */
+public final class StringSimilarity {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // Margin under the threshold an upper bound must fall before giving up, so that
+    // rounding in the bound never rejects a pair whose exact similarity reaches it
+    private static final double BOUND_MARGIN = 1e-9;
+
+    private StringSimilarity() {
+    }
+
+    /** Jaro–Winkler similarity: 0.0 (no matching characters) to 1.0 (equal strings). */
+    public static double jaroWinkler(String s1, String s2) {
+        return jaroWinkler(s1, s2, 0.0);
+    }
+
+    /**
+     * Jaro–Winkler similarity if it is at least minimum; otherwise a value below minimum
+     * (an upper bound of the similarity), returned as soon as the characters still
+     * unmatched can no longer lift it to minimum. Callers that only compare the result
+     * with minimum get the same answer as from the full computation.
+     */
+    public static double jaroWinkler(String s1, String s2, double minimum) {
+        if (s1.equals(s2)) return 1.0;
+        int len1 = s1.length();
+        int len2 = s2.length();
+        if (len1 == 0 || len2 == 0) return 0.0;
+
+        Scratch scratch = SCRATCH.get();
+        char[] a = scratch.chars1(len1);
+        char[] b = scratch.chars2(len2);
+        s1.getChars(0, len1, a, 0);
+        s2.getChars(0, len2, b, 0);
+
+        int prefix = 0;
+        for (int i = 0; i < Math.min(4, Math.min(len1, len2)); i++) {
+            if (a[i] == b[i]) {
+                prefix++;
+            } else {
+                break;
+            }
+        }
+        // every character of the shorter string matched, without transpositions
+        double bound = upperBound(Math.min(len1, len2), len1, len2, prefix);
+        if (bound + BOUND_MARGIN < minimum) {
+            return bound;
+        }
+
+        boolean[] matched1 = scratch.matched1(len1);
+        boolean[] matched2 = scratch.matched2(len2);
+        int matchDistance = Math.max(len1, len2) / 2 - 1;
+        int matches = 0;
+        int misses = 0;
+        for (int i = 0; i < len1; i++) {
+            int start = Math.max(0, i - matchDistance);
+            int end = Math.min(i + matchDistance + 1, len2);
+            char c = a[i];
+            boolean found = false;
+            for (int j = start; j < end; j++) {
+                if (matched2[j] || b[j] != c) continue;
+                matched1[i] = true;
+                matched2[j] = true;
+                matches++;
+                found = true;
+                break;
+            }
+            if (!found && minimum > 0.0) {
+                // the bound only drops when a character stays unmatched
+                misses++;
+                bound = upperBound(Math.min(len1 - misses, len2), len1, len2, prefix);
+                if (bound + BOUND_MARGIN < minimum) {
+                    return bound;
+                }
+            }
+        }
+        if (matches == 0) return 0.0;
+
+        double transpositions = 0;
+        int k = 0;
+        for (int i = 0; i < len1; i++) {
+            if (!matched1[i]) continue;
+            while (!matched2[k]) {
+                k++;
+            }
+            if (a[i] != b[k]) {
+                transpositions++;
+            }
+            k++;
+        }
+        transpositions /= 2.0;
+        double jaro = ((matches / (double) len1) +
+                         (matches / (double) len2) +
+                         ((matches - transpositions) / matches)) / 3.0;
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    /** Jaro–Winkler with at most the given matches and no transpositions. */
+    private static double upperBound(int matches, int len1, int len2, int prefix) {
+        if (matches <= 0) return 0.0;
+        double jaro = ((matches / (double) len1) + (matches / (double) len2) + 1.0) / 3.0;
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    /** Levenshtein distance: single-character insertions, deletions and substitutions. */
+    public static int levenshtein(String s1, String s2) {
+        return levenshtein(s1, s2, Math.max(s1.length(), s2.length()));
+    }
+
+    /**
+     * Levenshtein distance if it is at most max, otherwise max + 1. Strings whose
+     * lengths differ by more than max are rejected without a look at their characters.
+     * If the shorter string fits in 64 characters its edit-distance column is kept in
+     * two bit vectors (Myers' bit-parallel algorithm, one step per character of the
+     * longer string); otherwise only the diagonal band of width 2 * max + 1 is computed,
+     * two rows at a time. Both stop as soon as the distance is sure to exceed max.
+     */
+    public static int levenshtein(String s1, String s2, int max) {
+        if (s1.equals(s2)) return 0;
+        max = Math.max(max, 0);
+        // rows (or the bit-parallel pattern) over the shorter string
+        String shorter = s1.length() <= s2.length() ? s1 : s2;
+        String longer = shorter == s1 ? s2 : s1;
+        int n = shorter.length();
+        int m = longer.length();
+        if (m - n > max) return max + 1;
+        if (n == 0) return m;
+
+        Scratch scratch = SCRATCH.get();
+        char[] a = scratch.chars1(n);
+        char[] b = scratch.chars2(m);
+        shorter.getChars(0, n, a, 0);
+        longer.getChars(0, m, b, 0);
+        return n <= Long.SIZE ? bitParallel(scratch, a, n, b, m, max) : banded(scratch, a, n, b, m, max);
+    }
+
+    /** Myers/Hyyrö bit-vector edit distance with pattern a (at most 64 characters). */
+    private static int bitParallel(Scratch scratch, char[] a, int n, char[] b, int m, int max) {
+        PatternMasks masks = scratch.masks(a, n);
+        long last = 1L << (n - 1);
+        long pv = -1L;
+        long mv = 0L;
+        int score = n;
+        for (int j = 0; j < m; j++) {
+            long eq = masks.of(b[j]);
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // the score drops by at most one per character left
+            if (score - (m - j - 1) > max) {
+                return max + 1;
+            }
+            ph = (ph << 1) | 1L;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return score <= max ? score : max + 1;
+    }
+
+    /** Two-row dynamic programming over the diagonal band |i - j| <= max. */
+    private static int banded(Scratch scratch, char[] a, int n, char[] b, int m, int max) {
+        int over = max + 1;
+        int[] prev = scratch.row1(m + 1);
+        int[] cur = scratch.row2(m + 1);
+        int firstHi = Math.min(m, max);
+        for (int j = 0; j <= firstHi; j++) {
+            prev[j] = j;
+        }
+        if (firstHi < m) {
+            prev[firstHi + 1] = over;
+        }
+        for (int i = 1; i <= n; i++) {
+            int lo = Math.max(1, i - max);
+            int hi = Math.min(m, i + max);
+            cur[lo - 1] = lo == 1 ? Math.min(i, over) : over;
+            int rowMin = cur[lo - 1];
+            char c = a[i - 1];
+            for (int j = lo; j <= hi; j++) {
+                int v = prev[j - 1] + (c == b[j - 1] ? 0 : 1);
+                v = Math.min(v, Math.min(prev[j], cur[j - 1]) + 1);
+                cur[j] = Math.min(v, over);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (hi < m) {
+                // read as the cell above by the next row, whose band reaches one further
+                cur[hi + 1] = over;
+            }
+            if (rowMin > max) {
+                return over;
+            }
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return Math.min(prev[m], over);
+    }
+
+    /**
+     * Common-word ratio of two texts split at whitespace (as String.split("\\s+") splits
+     * them): words of s1 paired one-to-one with equal words of s2, over the mean word
+     * count; 0.0 to 1.0. Linear time: the words of s2 are counted in a hash table of
+     * offsets into s2, and each word of s1 takes one of its copies.
+     */
+    public static double wordOverlap(String s1, String s2) {
+        if (s1 == null || s2 == null) return 0.0;
+        Scratch scratch = SCRATCH.get();
+        WordTable table = scratch.words(s2.length());
+        int words2 = 0;
+        int pos = leadingWord(s2);
+        if (pos < 0) {
+            table.add(s2, 0, 0);
+            words2++;
+            pos = -pos - 1;
+        }
+        while ((pos = nextWordStart(s2, pos)) < s2.length()) {
+            int end = wordEnd(s2, pos);
+            table.add(s2, pos, end);
+            words2++;
+            pos = end;
+        }
+
+        int words1 = 0;
+        int common = 0;
+        pos = leadingWord(s1);
+        if (pos < 0) {
+            words1++;
+            common += table.take(s1, 0, 0) ? 1 : 0;
+            pos = -pos - 1;
+        }
+        while ((pos = nextWordStart(s1, pos)) < s1.length()) {
+            int end = wordEnd(s1, pos);
+            words1++;
+            common += table.take(s1, pos, end) ? 1 : 0;
+            pos = end;
+        }
+        double avg = (words1 + words2) / 2.0;
+        return avg > 0 ? common / avg : 0.0;
+    }
+
+    /**
+     * Where word scanning starts in s, encoded as -(start + 1) if split would also
+     * produce an empty first word: s is empty, or starts with whitespace and has a word.
+     */
+    private static int leadingWord(String s) {
+        if (s.isEmpty()) {
+            return -1;
+        }
+        if (isSpace(s.charAt(0)) && nextWordStart(s, 0) < s.length()) {
+            return -1;
+        }
+        return 0;
+    }
+
+    private static int nextWordStart(String s, int pos) {
+        while (pos < s.length() && isSpace(s.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int wordEnd(String s, int pos) {
+        while (pos < s.length() && !isSpace(s.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /** The characters regex \s matches. */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    /** Open-addressing multiset of words, each held as a range of the text it was added from. */
+    private static final class WordTable {
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private int[] counts = new int[64];
+        private int mask;
+        private String text;
+
+        /** Clears the table for the words of a text of the given length. */
+        void reset(int textLength) {
+            // at most one word per two characters, plus a leading empty word
+            int capacity = Integer.highestOneBit(Math.max(16, textLength + 4)) << 1;
+            if (counts.length < capacity) {
+                starts = new int[capacity];
+                ends = new int[capacity];
+                counts = new int[capacity];
+            } else {
+                Arrays.fill(counts, 0, capacity, 0);
+            }
+            mask = capacity - 1;
+            text = null;
+        }
+
+        void add(String s, int start, int end) {
+            text = s;
+            int slot = hash(s, start, end) & mask;
+            while (counts[slot] != 0) {
+                if (equal(s, start, end, starts[slot], ends[slot])) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            starts[slot] = start;
+            ends[slot] = end;
+            counts[slot] = 1;
+        }
+
+        /** Removes one copy of the word s[start, end) if the table holds it. */
+        boolean take(String s, int start, int end) {
+            if (text == null) {
+                return false;
+            }
+            int slot = hash(s, start, end) & mask;
+            while (counts[slot] != 0) {
+                if (ends[slot] - starts[slot] == end - start
+                        && text.regionMatches(starts[slot], s, start, end - start)) {
+                    // a used-up word keeps its slot (count -1) so probe chains stay intact
+                    if (counts[slot] > 0) {
+                        counts[slot]--;
+                        if (counts[slot] == 0) {
+                            counts[slot] = -1;
+                        }
+                        return true;
+                    }
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private boolean equal(String s, int start, int end, int otherStart, int otherEnd) {
+            return end - start == otherEnd - otherStart && s.regionMatches(start, s, otherStart, end - start);
+        }
+
+        private static int hash(String s, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + s.charAt(i);
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /** Bit mask of the positions of each character in a pattern of at most 64 characters. */
+    private static final class PatternMasks {
+        private final long[] ascii = new long[128];
+        // characters outside ASCII, with their masks, in pattern order
+        private final char[] others = new char[Long.SIZE];
+        private final long[] otherMasks = new long[Long.SIZE];
+        private int otherCount;
+        private final char[] pattern = new char[Long.SIZE];
+        private int length;
+
+        void reset(char[] a, int n) {
+            // clear only what the previous pattern set
+            for (int i = 0; i < length; i++) {
+                if (pattern[i] < 128) {
+                    ascii[pattern[i]] = 0L;
+                }
+            }
+            otherCount = 0;
+            length = n;
+            for (int i = 0; i < n; i++) {
+                char c = a[i];
+                pattern[i] = c;
+                if (c < 128) {
+                    ascii[c] |= 1L << i;
+                } else {
+                    int k = 0;
+                    while (k < otherCount && others[k] != c) {
+                        k++;
+                    }
+                    if (k == otherCount) {
+                        others[k] = c;
+                        otherMasks[k] = 0L;
+                        otherCount++;
+                    }
+                    otherMasks[k] |= 1L << i;
+                }
+            }
+        }
+
+        long of(char c) {
+            if (c < 128) {
+                return ascii[c];
+            }
+            for (int k = 0; k < otherCount; k++) {
+                if (others[k] == c) {
+                    return otherMasks[k];
+                }
+            }
+            return 0L;
+        }
+    }
+
+    /** Buffers of one thread, grown to the longest input and reused. */
+    private static final class Scratch {
+        private char[] chars1 = new char[256];
+        private char[] chars2 = new char[256];
+        private boolean[] matched1 = new boolean[256];
+        private boolean[] matched2 = new boolean[256];
+        private int[] row1 = new int[256];
+        private int[] row2 = new int[256];
+        private final PatternMasks masks = new PatternMasks();
+        private final WordTable words = new WordTable();
+
+        char[] chars1(int length) {
+            if (chars1.length < length) chars1 = new char[grow(chars1.length, length)];
+            return chars1;
+        }
+
+        char[] chars2(int length) {
+            if (chars2.length < length) chars2 = new char[grow(chars2.length, length)];
+            return chars2;
+        }
+
+        /** Match flags for the first string, all false over [0, length). */
+        boolean[] matched1(int length) {
+            if (matched1.length < length) {
+                matched1 = new boolean[grow(matched1.length, length)];
+            } else {
+                Arrays.fill(matched1, 0, length, false);
+            }
+            return matched1;
+        }
+
+        boolean[] matched2(int length) {
+            if (matched2.length < length) {
+                matched2 = new boolean[grow(matched2.length, length)];
+            } else {
+                Arrays.fill(matched2, 0, length, false);
+            }
+            return matched2;
+        }
+
+        int[] row1(int length) {
+            if (row1.length < length) row1 = new int[grow(row1.length, length)];
+            return row1;
+        }
+
+        int[] row2(int length) {
+            if (row2.length < length) row2 = new int[grow(row2.length, length)];
+            return row2;
+        }
+
+        PatternMasks masks(char[] pattern, int length) {
+            masks.reset(pattern, length);
+            return masks;
+        }
+
+        WordTable words(int textLength) {
+            words.reset(textLength);
+            return words;
+        }
+
+        private static int grow(int current, int needed) {
+            return Math.max(needed, current * 2);
+        }
+    }
+}
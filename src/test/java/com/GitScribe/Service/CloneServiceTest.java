@@ -0,0 +1,249 @@
+package com.GitScribe.Service;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Clone store against a local bare repository reached through a file:// URL: one clone
+ * for concurrent first requests, refresh of the cached clone after a push, its
+ * clone.properties bookkeeping, no reset under a running analysis, recovery from a
+ * broken clone, object pools shared by forks only, and eviction over the byte budget.
+ */
+class CloneServiceTest {
+
+    @TempDir
+    Path tmp;
+
+    private File work;
+    private String repoUrl;
+    private CloneService cloneService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        File remote = tmp.resolve("remote.git").toFile();
+        Git.init().setBare(true).setDirectory(remote).call().close();
+        repoUrl = "file://" + remote.getAbsolutePath();
+
+        work = tmp.resolve("work").toFile();
+        try (Git git = Git.init().setDirectory(work).call()) {
+            git.remoteAdd().setName(Constants.DEFAULT_REMOTE_NAME).setUri(new URIish(repoUrl)).call();
+        }
+        commitAndPush("Hello.java", "class Hello {}\n", "initial");
+
+        cloneService = new CloneService();
+        ReflectionTestUtils.setField(cloneService, "cacheDir", tmp.resolve("store").toString());
+    }
+
+    @Test
+    void concurrentRequestsCloneOnce() throws Exception {
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<File>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<File> request = () -> {
+                    start.await();
+                    return cloneService.getOrCloneRepository(repoUrl, false);
+                };
+                results.add(pool.submit(request));
+            }
+            start.countDown();
+            File first = results.get(0).get();
+            for (Future<File> result : results) {
+                assertEquals(first, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, cloneService.getStoreStats().getClonesCreated());
+        assertEquals(threads - 1, cloneService.getStoreStats().getRefreshes());
+    }
+
+    @Test
+    void pushedCommitReachesCachedClone() throws Exception {
+        File clone = cloneService.getOrCloneRepository(repoUrl, false);
+        CloneMetadata before = CloneMetadata.read(new File(clone, Constants.DOT_GIT));
+        assertNotNull(before);
+        assertEquals(CloneService.normalizeRepoUrl(repoUrl), before.getRepoUrl());
+
+        RevCommit pushed = commitAndPush("Hello.java", "class Hello { void hi() {} }\n", "add hi");
+        // lastFetch has millisecond resolution
+        Thread.sleep(20);
+
+        assertEquals(clone, cloneService.getOrCloneRepository(repoUrl, false));
+        assertEquals(1, cloneService.getStoreStats().getClonesCreated());
+        assertEquals(1, cloneService.getStoreStats().getRefreshes());
+        try (Git git = Git.open(clone)) {
+            Repository repo = git.getRepository();
+            assertEquals(pushed.getId(), repo.resolve(Constants.HEAD));
+        }
+        assertEquals("class Hello { void hi() {} }\n", read(new File(clone, "Hello.java")));
+
+        File properties = new File(new File(new File(clone, Constants.DOT_GIT), "gitscribe"), "clone.properties");
+        assertTrue(properties.isFile());
+        CloneMetadata after = CloneMetadata.read(new File(clone, Constants.DOT_GIT));
+        assertNotNull(after);
+        assertEquals(pushed.getName(), after.getHead());
+        assertTrue(after.getLastFetch() > before.getLastFetch());
+        assertEquals(after.getHead(), cloneService.getCloneMetadata(repoUrl, false).getHead());
+    }
+
+    @Test
+    void workingTreeIsNotResetUnderAnAnalysis() throws Exception {
+        RepositorySessionRegistry registry = new RepositorySessionRegistry();
+        ReflectionTestUtils.setField(cloneService, "sessionRegistry", registry);
+        try {
+            File clone = cloneService.getOrCloneRepository(repoUrl, false);
+            RevCommit pushed = commitAndPush("Hello.java", "class Hello { void hi() {} }\n", "add hi");
+            try (RepositorySession session = registry.acquire(clone.getPath())) {
+                cloneService.getOrCloneRepository(repoUrl, false);
+                // fetched, but the file the analysis reads is left as it was
+                assertEquals("class Hello {}\n", read(new File(clone, "Hello.java")));
+            }
+            cloneService.getOrCloneRepository(repoUrl, false);
+            assertEquals("class Hello { void hi() {} }\n", read(new File(clone, "Hello.java")));
+            assertEquals(pushed.getName(), cloneService.getCloneMetadata(repoUrl, false).getHead());
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void unusableCloneIsRecloned() throws Exception {
+        File clone = cloneService.getOrCloneRepository(repoUrl, false);
+        File objects = new File(new File(clone, Constants.DOT_GIT), Constants.OBJECTS);
+        deleteRecursively(objects);
+        assertFalse(objects.exists());
+
+        assertEquals(clone, cloneService.getOrCloneRepository(repoUrl, false));
+        assertEquals(2, cloneService.getStoreStats().getClonesCreated());
+        assertEquals(0, cloneService.getStoreStats().getRefreshes());
+        try (Git git = Git.open(clone)) {
+            Repository repo = git.getRepository();
+            assertEquals(cloneService.getCloneMetadata(repoUrl, false).getHead(), repo.resolve(Constants.HEAD).getName());
+        }
+        assertEquals("class Hello {}\n", read(new File(clone, "Hello.java")));
+    }
+
+    @Test
+    void onlyForksShareAnObjectPool() throws Exception {
+        // a fork of the remote and an unrelated repository, both with the remote's name
+        File fork = tmp.resolve("fork").resolve("remote.git").toFile();
+        Git.cloneRepository().setURI(repoUrl).setDirectory(fork).setBare(true).call().close();
+        File other = unrelatedRepository(tmp.resolve("other").resolve("remote").toFile());
+
+        File clone = cloneService.getOrCloneRepository(repoUrl, false);
+        File forkClone = cloneService.getOrCloneRepository("file://" + fork.getAbsolutePath(), false);
+        File otherClone = cloneService.getOrCloneRepository("file://" + other.getAbsolutePath(), false);
+
+        String pool = CloneMetadata.read(new File(clone, Constants.DOT_GIT)).getPool();
+        assertNotNull(pool);
+        assertEquals(pool, CloneMetadata.read(new File(forkClone, Constants.DOT_GIT)).getPool());
+        assertNotEquals(pool, CloneMetadata.read(new File(otherClone, Constants.DOT_GIT)).getPool());
+        // the clones read their objects through the pool
+        assertEquals("class Hello {}\n", read(new File(forkClone, "Hello.java")));
+        try (Git git = Git.open(otherClone)) {
+            assertNotNull(git.getRepository().resolve(Constants.HEAD + "^{tree}"));
+        }
+    }
+
+    @Test
+    void evictionSkipsClonesInUseAndDropsOrphanedPools() throws Exception {
+        File idle = cloneService.getOrCloneRepository(repoUrl, false);
+        File pinned = cloneService.getOrCloneRepository(
+                "file://" + unrelatedRepository(tmp.resolve("pinned").toFile()).getAbsolutePath(), false);
+        // a pool whose only clone is gone
+        File removed = cloneService.getOrCloneRepository(
+                "file://" + unrelatedRepository(tmp.resolve("removed").toFile()).getAbsolutePath(), false);
+        File orphanedPool = new File(CloneMetadata.read(new File(removed, Constants.DOT_GIT)).getPool());
+        deleteRecursively(removed);
+        File idlePool = new File(CloneMetadata.read(new File(idle, Constants.DOT_GIT)).getPool());
+        File pinnedPool = new File(CloneMetadata.read(new File(pinned, Constants.DOT_GIT)).getPool());
+        assertTrue(orphanedPool.isDirectory());
+
+        RepositorySessionRegistry registry = new RepositorySessionRegistry();
+        ReflectionTestUtils.setField(cloneService, "sessionRegistry", registry);
+        ReflectionTestUtils.setField(cloneService, "maxBytes", 1L);
+        try (RepositorySession session = registry.acquire(pinned.getPath())) {
+            File requested = cloneService.getOrCloneRepository(
+                    "file://" + unrelatedRepository(tmp.resolve("requested").toFile()).getAbsolutePath(), false);
+
+            assertTrue(requested.isDirectory());
+            assertTrue(pinned.isDirectory());
+            assertTrue(pinnedPool.isDirectory());
+            assertFalse(idle.exists());
+            assertFalse(idlePool.exists());
+            assertFalse(orphanedPool.exists());
+            assertEquals(3, cloneService.getStoreStats().getEvictions());
+            assertTrue(cloneService.getStoreStats().getPinnedSkips() > 0);
+            assertEquals("class Other {}\n", read(new File(pinned, "Other.java")));
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    /** A repository with one commit, unrelated to the remote and to the others made here. */
+    private static File unrelatedRepository(File dir) throws Exception {
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Files.write(new File(dir, "Other.java").toPath(), "class Other {}\n".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("Other.java").call();
+            git.commit().setMessage("unrelated " + dir.getName()).setAuthor("Test", "test@example.com")
+                    .setCommitter("Test", "test@example.com").call();
+        }
+        return dir;
+    }
+
+    private RevCommit commitAndPush(String path, String content, String message) throws Exception {
+        Files.write(new File(work, path).toPath(), content.getBytes(StandardCharsets.UTF_8));
+        try (Git git = Git.open(work)) {
+            git.add().addFilepattern(path).call();
+            RevCommit commit = git.commit().setMessage(message)
+                    .setAuthor("Test", "test@example.com")
+                    .setCommitter("Test", "test@example.com")
+                    .call();
+            git.push().setRemote(Constants.DEFAULT_REMOTE_NAME)
+                    .add(Constants.MASTER).call();
+            return commit;
+        }
+    }
+
+    private static String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,310 @@
+package com.GitScribe.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * {@link LexicalMethodScanner} against JDT: for each source of a small corpus the scan
+ * must find the methods {@link JDTParser#getMethods} finds, with the same names and line
+ * ranges, and every scanned method must parse on its own.
+ */
+class LexicalMethodScannerTest {
+
+    private static final String RECORDS = """
+            package p;
+
+            import java.util.List;
+
+            public record Point(int x, int y) implements Comparable<Point> {
+
+                static final Point ORIGIN = new Point(0, 0);
+
+                static {
+                    System.out.println("loaded");
+                }
+
+                /** Rejects negative coordinates. */
+                public Point {
+                    if (x < 0 || y < 0) {
+                        throw new IllegalArgumentException("negative");
+                    }
+                }
+
+                public Point(int xy) {
+                    this(xy, xy);
+                }
+
+                @Override
+                public int compareTo(Point o) {
+                    return Integer.compare(x * x + y * y, o.x * o.x + o.y * o.y);
+                }
+
+                record Pair<A, B>(A first, B second) {
+                    @SuppressWarnings("unchecked")
+                    Pair {
+                        java.util.Objects.requireNonNull(first);
+                    }
+
+                    static <A> Pair<A, A> twice(A a) { return new Pair<>(a, a); }
+                }
+
+                interface Shape { double area(); }
+
+                static List<Point> record(int record) {
+                    return List.of(new Point(record, record));
+                }
+            }
+            """;
+
+    private static final String ENUMS = """
+            package p;
+
+            import java.util.function.IntBinaryOperator;
+
+            public enum Operation implements IntBinaryOperator {
+                PLUS("+") {
+                    @Override
+                    public int applyAsInt(int a, int b) { return a + b; }
+                },
+                TIMES("*", new Runnable() {
+                    public void run() {
+                        System.out.println("{");
+                    }
+                }) {
+                    @Override
+                    public int applyAsInt(int a, int b) {
+                        return a * b;
+                    }
+
+                    @Override
+                    public String toString() { return "times"; }
+                },
+                @Deprecated
+                NONE("?") {
+                    public int applyAsInt(int a, int b) { throw new UnsupportedOperationException(); }
+                };
+
+                private final String symbol;
+
+                Operation(String symbol) {
+                    this(symbol, null);
+                }
+
+                Operation(String symbol, Runnable onUse) {
+                    this.symbol = symbol;
+                }
+
+                public String symbol() { return symbol; }
+
+                enum Empty {}
+
+                enum Level { LOW, HIGH; Level next() { return values()[(ordinal() + 1) % 2]; } }
+            }
+            """;
+
+    private static final String ANNOTATIONS = """
+            package p;
+
+            import java.lang.annotation.*;
+
+            @Retention(RetentionPolicy.RUNTIME)
+            @Target({ ElementType.METHOD, ElementType.TYPE })
+            @interface Route {
+                String value() default "/";
+                String[] methods() default { "GET", "HEAD" };
+                int order() default -1;
+            }
+
+            @Route(value = "/users", methods = { "GET" })
+            @SuppressWarnings(value = { "unchecked", "rawtypes" })
+            class Users {
+
+                @Route(value = "/{id}", order = 2 * (1 + 1))
+                public String get(@Deprecated(since = "1.0", forRemoval = true) String id) {
+                    return id;
+                }
+
+                /** Lists them all. */
+                @Route("/") @Deprecated
+                public
+                String
+                list() { return "[]"; }
+
+                @SafeVarargs
+                static final <T> void each(T... items) {
+                }
+            }
+            """;
+
+    private static final String GENERICS = """
+            package p;
+
+            import java.util.*;
+            import java.util.function.*;
+
+            abstract class Repository<K extends Comparable<K>, V extends Map<K, List<? super V>>> {
+
+                private final Map<K, List<Map<String, V>>> cache = new HashMap<>();
+                private final Comparator<K> order = (a, b) -> { return a.compareTo(b); };
+                private final Runnable task = new Runnable() {
+                    @Override
+                    public void run() { }
+                }, noop = () -> { };
+                private final int[][] grid = { { 1, 2 }, { 3, 4 } }, empty = new int[0][];
+                private boolean less = 1 < 2, more = 2 > 1;
+
+                public <T extends Comparable<? super T>> T max(Collection<? extends T> items) {
+                    return Collections.max(items);
+                }
+
+                protected abstract <R> R fold(BiFunction<R, ? super V, R> f, R initial);
+
+                Map<K, List<Map<String, V>>> snapshot() throws java.io.IOException, RuntimeException {
+                    return cache;
+                }
+
+                int shift(int x) { return x >> 2 >>> 1 << 3; }
+
+                public Repository() {
+                    super();
+                }
+            }
+            """;
+
+    private static final String TEXT_BLOCKS = """
+            package p;
+
+            class Templates {
+
+                static final String HEADER = \"""
+                    class Fake {
+                        void notAMethod() { }
+                    \""";
+
+                String render(String name) {
+                    String body = \"""
+                        }}} "quoted" \\\""" still inside {
+                        \""";
+                    return body + name + '}' + "{" + "\\"}";
+                }
+
+                // void commented() { }
+                /* void blockCommented() { } */
+                char brace() { return '{'; }
+
+                String empty() { return ""; }
+
+                String escapes() { return "\\\\" + "\\"" + '\\'' + "\\u007B"; }
+            }
+            """;
+
+    private static final String NESTED_TYPES = """
+            package p;
+
+            public class Outer {
+
+                private int value;
+
+                { value = 1; }
+
+                public int value() { return value; }
+
+                static class Inner {
+                    void inner() {
+                        class Local {
+                            void local() { }
+                        }
+                        Runnable r = new Runnable() {
+                            public void run() { }
+                        };
+                    }
+
+                    interface Deep {
+                        void deep();
+
+                        default void deeper() {
+                            new Object() { void hidden() { } };
+                        }
+
+                        @interface Marker { }
+                    }
+                }
+
+                sealed interface Node permits Leaf, Branch { }
+
+                record Leaf(int value) implements Node { }
+
+                record Branch(Node left, Node right) implements Node {
+                    Branch {
+                    }
+
+                    int size() { return 2; }
+                }
+
+                public void after() {
+                }
+            }
+
+            class Second {
+                Second() { }
+
+                native void peer();
+            }
+            """;
+
+    @Test
+    void recordsMatchJdt() throws IOException {
+        assertSameMethods(RECORDS);
+    }
+
+    @Test
+    void enumsWithBodiesMatchJdt() throws IOException {
+        assertSameMethods(ENUMS);
+    }
+
+    @Test
+    void annotationsWithArgumentsMatchJdt() throws IOException {
+        assertSameMethods(ANNOTATIONS);
+    }
+
+    @Test
+    void genericsMatchJdt() throws IOException {
+        assertSameMethods(GENERICS);
+    }
+
+    @Test
+    void textBlocksMatchJdt() throws IOException {
+        assertSameMethods(TEXT_BLOCKS);
+    }
+
+    @Test
+    void nestedTypesMatchJdt() throws IOException {
+        assertSameMethods(NESTED_TYPES);
+    }
+
+    private static void assertSameMethods(String source) throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (MethodDeclarationData method : JDTParser.getMethods(source)) {
+            expected.add(method.getName() + " " + method.getStartLine() + "-" + method.getEndLine());
+        }
+        ScannedSource scanned = LexicalMethodScanner.scan(new StringReader(source));
+        List<String> actual = new ArrayList<>();
+        for (ScannedSource.ScannedMethod method : scanned.getMethods()) {
+            actual.add(method.getName() + " " + method.getStartLine() + "-" + method.getEndLine());
+        }
+        assertEquals(expected, actual);
+
+        for (int i = 0; i < scanned.getMethods().size(); i++) {
+            MethodDeclarationData parsed = scanned.parse(i);
+            assertNotNull(parsed, "scanned method does not parse: " + scanned.getMethods().get(i).getBlock());
+            assertEquals(scanned.getMethods().get(i).getName(), parsed.getName());
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.GitScribe.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Randomized comparison of {@link StringSimilarity} with straightforward reference
+ * implementations: Levenshtein distance on both sides of the 64-character bit-parallel
+ * limit and at several cutoffs, the multiset word overlap, and Jaro–Winkler, whose
+ * early exit must not change which pairs reach the detectors' thresholds.
+ */
+class StringSimilarityTest {
+
+    private static final int PAIRS = 20_000;
+    private static final int[] MAX_DISTANCES = { 0, 1, 2, 3, 5, 10, 40 };
+    // thresholds of the body, signature and rename detectors
+    private static final double[] JARO_WINKLER_THRESHOLDS = { 0.50, 0.85, 0.95 };
+    private static final String[] WORDS = { "int", "i", "=", "0;", "return", "x", "foo(bar);", "{", "}", "if" };
+    private static final String[] SPACES = { " ", "  ", "\t", "\n", " \r\n " };
+
+    @Test
+    void levenshteinMatchesReference() {
+        Random random = new Random(42);
+        for (int n = 0; n < PAIRS; n++) {
+            String s1 = randomString(random, random.nextInt(150));
+            String s2 = random.nextBoolean() ? mutate(random, s1, random.nextInt(12)) : randomString(random, random.nextInt(150));
+            int expected = referenceLevenshtein(s1, s2);
+            assertEquals(expected, StringSimilarity.levenshtein(s1, s2), () -> pair(s1, s2));
+            for (int max : MAX_DISTANCES) {
+                int bounded = expected <= max ? expected : max + 1;
+                assertEquals(bounded, StringSimilarity.levenshtein(s1, s2, max), () -> "max " + max + ": " + pair(s1, s2));
+            }
+        }
+    }
+
+    @Test
+    void wordOverlapMatchesReference() {
+        Random random = new Random(7);
+        for (int n = 0; n < PAIRS; n++) {
+            String s1 = randomText(random, random.nextInt(30));
+            String s2 = randomText(random, random.nextInt(30));
+            assertEquals(referenceWordOverlap(s1, s2), StringSimilarity.wordOverlap(s1, s2), () -> pair(s1, s2));
+        }
+    }
+
+    @Test
+    void jaroWinklerEarlyExitKeepsDecisions() {
+        Random random = new Random(23);
+        for (int n = 0; n < PAIRS; n++) {
+            String s1 = randomString(random, random.nextInt(200));
+            String s2 = random.nextBoolean() ? mutate(random, s1, random.nextInt(20)) : randomString(random, random.nextInt(200));
+            double expected = referenceJaroWinkler(s1, s2);
+            assertEquals(expected, StringSimilarity.jaroWinkler(s1, s2), () -> pair(s1, s2));
+            double[] thresholds = { JARO_WINKLER_THRESHOLDS[0], JARO_WINKLER_THRESHOLDS[1], JARO_WINKLER_THRESHOLDS[2],
+                    random.nextDouble(), expected };
+            for (double threshold : thresholds) {
+                double bounded = StringSimilarity.jaroWinkler(s1, s2, threshold);
+                assertEquals(expected >= threshold, bounded >= threshold, () -> "threshold " + threshold + ": " + pair(s1, s2));
+                if (expected >= threshold) {
+                    assertEquals(expected, bounded, () -> "threshold " + threshold + ": " + pair(s1, s2));
+                }
+            }
+        }
+    }
+
+    @Test
+    void jaroWinklerEarlyExitKeepsRenameChoice() {
+        Random random = new Random(25);
+        for (int n = 0; n < PAIRS / 10; n++) {
+            String baseline = randomString(random, 1 + random.nextInt(120));
+            String[] candidates = new String[10];
+            for (int c = 0; c < candidates.length; c++) {
+                candidates[c] = mutate(random, baseline, random.nextInt(60));
+            }
+            // the selection loop of FileRenameDetector, with the bound passed and without
+            int bounded = -1;
+            int exact = -1;
+            double boundedBest = 0.50;
+            double exactBest = 0.50;
+            for (int c = 0; c < candidates.length; c++) {
+                double similarity = StringSimilarity.jaroWinkler(baseline, candidates[c], boundedBest);
+                if (bounded < 0 ? similarity >= boundedBest : similarity > boundedBest) {
+                    bounded = c;
+                    boundedBest = similarity;
+                }
+                double reference = referenceJaroWinkler(baseline, candidates[c]);
+                if (exact < 0 ? reference >= exactBest : reference > exactBest) {
+                    exact = c;
+                    exactBest = reference;
+                }
+            }
+            assertEquals(exact, bounded, () -> "baseline \"" + baseline + "\"");
+        }
+    }
+
+    /** Jaro–Winkler as the detectors computed it before the shared implementation. */
+    static double referenceJaroWinkler(String s1, String s2) {
+        if (s1.equals(s2)) return 1.0;
+        int s1Len = s1.length();
+        int s2Len = s2.length();
+        if (s1Len == 0 || s2Len == 0) return 0.0;
+        int matchDistance = Math.max(s1Len, s2Len) / 2 - 1;
+        boolean[] s1Matches = new boolean[s1Len];
+        boolean[] s2Matches = new boolean[s2Len];
+        int matches = 0;
+        for (int i = 0; i < s1Len; i++) {
+            int start = Math.max(0, i - matchDistance);
+            int end = Math.min(i + matchDistance + 1, s2Len);
+            for (int j = start; j < end; j++) {
+                if (s2Matches[j]) continue;
+                if (s1.charAt(i) != s2.charAt(j)) continue;
+                s1Matches[i] = true;
+                s2Matches[j] = true;
+                matches++;
+                break;
+            }
+        }
+        if (matches == 0) return 0.0;
+        double transpositions = 0;
+        int k = 0;
+        for (int i = 0; i < s1Len; i++) {
+            if (!s1Matches[i]) continue;
+            while (!s2Matches[k]) {
+                k++;
+            }
+            if (s1.charAt(i) != s2.charAt(k)) {
+                transpositions++;
+            }
+            k++;
+        }
+        transpositions /= 2.0;
+        double jaro = ((matches / (double) s1Len) +
+                         (matches / (double) s2Len) +
+                         ((matches - transpositions) / matches)) / 3.0;
+        int prefix = 0;
+        for (int i = 0; i < Math.min(4, Math.min(s1Len, s2Len)); i++) {
+            if (s1.charAt(i) == s2.charAt(i)) {
+                prefix++;
+            } else {
+                break;
+            }
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    /** Full (n+1) x (m+1) edit-distance matrix. */
+    static int referenceLevenshtein(String s1, String s2) {
+        int[][] d = new int[s1.length() + 1][s2.length() + 1];
+        for (int i = 0; i <= s1.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= s2.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= s1.length(); i++) {
+            for (int j = 1; j <= s2.length(); j++) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+            }
+        }
+        return d[s1.length()][s2.length()];
+    }
+
+    /** Words of split("\\s+") paired one-to-one, over the mean word count. */
+    static double referenceWordOverlap(String s1, String s2) {
+        String[] words1 = s1.split("\\s+");
+        String[] words2 = s2.split("\\s+");
+        Map<String, Integer> counts = new HashMap<>();
+        for (String word : words2) {
+            counts.merge(word, 1, Integer::sum);
+        }
+        int common = 0;
+        for (String word : words1) {
+            Integer count = counts.get(word);
+            if (count != null && count > 0) {
+                counts.put(word, count - 1);
+                common++;
+            }
+        }
+        double avg = (words1.length + words2.length) / 2.0;
+        return avg > 0 ? common / avg : 0.0;
+    }
+
+    /** Characters from a small alphabet, so that pairs share many, with some outside ASCII. */
+    static String randomString(Random random, int length) {
+        String alphabet = "abcde(){};, \u00e9\u4e2d";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    /** s with the given number of random insertions, deletions and substitutions. */
+    static String mutate(Random random, String s, int edits) {
+        StringBuilder sb = new StringBuilder(s);
+        for (int e = 0; e < edits; e++) {
+            int op = random.nextInt(3);
+            if (op == 0 || sb.length() == 0) {
+                sb.insert(random.nextInt(sb.length() + 1), randomString(random, 1));
+            } else if (op == 1) {
+                sb.deleteCharAt(random.nextInt(sb.length()));
+            } else {
+                sb.setCharAt(random.nextInt(sb.length()), randomString(random, 1).charAt(0));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String randomText(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextInt(4) == 0) {
+            sb.append(SPACES[random.nextInt(SPACES.length)]);
+        }
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(SPACES[random.nextInt(SPACES.length)]);
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            sb.append(SPACES[random.nextInt(SPACES.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String pair(String s1, String s2) {
+        return "\"" + s1 + "\" vs \"" + s2 + "\"";
+    }
+}